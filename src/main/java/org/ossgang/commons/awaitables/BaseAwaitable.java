@@ -2,9 +2,8 @@ package org.ossgang.commons.awaitables;
 
 import static java.time.Duration.ZERO;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
-import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
-import static org.ossgang.commons.utils.NamedDaemonThreadFactory.daemonThreadFactoryWithPrefix;
+import static org.ossgang.commons.utils.ThreadPools.cachedDaemonPool;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -29,8 +28,7 @@ import org.ossgang.commons.awaitables.exceptions.AwaitTimeoutException;
  */
 @SuppressWarnings("unchecked")
 class BaseAwaitable<T, A extends BaseAwaitable<T, A>> {
-    private static final ExecutorService AWAITER_POOL =
-            newCachedThreadPool(daemonThreadFactoryWithPrefix("ossgang-commons-Awaitable-"));
+    private static final ExecutorService AWAITER_POOL = cachedDaemonPool("ossgang-commons-Awaitable-");
 
     private static final Duration DEFAULT_RETRY_INTERVAL = Duration.ofMillis(100);
     private static final int DEFAULT_RETRY_COUNT = Integer.MAX_VALUE;
@@ -20,8 +20,7 @@ package org.ossgang.commons.monads;
 
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.CompletableFuture.supplyAsync;
-import static java.util.concurrent.Executors.newCachedThreadPool;
-import static org.ossgang.commons.utils.NamedDaemonThreadFactory.daemonThreadFactoryWithPrefix;
+import static org.ossgang.commons.utils.ThreadPools.cachedDaemonPool;
 import static org.ossgang.commons.utils.Uncheckeds.uncheckedConsumer;
 import static org.ossgang.commons.utils.Uncheckeds.uncheckedFunction;
 import static org.ossgang.commons.utils.Uncheckeds.uncheckedRunnable;
@@ -46,8 +45,7 @@ import java.util.function.Supplier;
  */
 public class AsyncMaybe<T> {
 
-    private static final ExecutorService ASYNC_MAYBE_POOL = newCachedThreadPool(
-            daemonThreadFactoryWithPrefix("ossgang-commons-AsyncMaybe-"));
+    private static final ExecutorService ASYNC_MAYBE_POOL = cachedDaemonPool("ossgang-commons-AsyncMaybe-");
     private static final String NULL_VALUE_MSG = "AsyncMaybe cannot contain a null value";
 
     private final CompletableFuture<Maybe<T>> stage;
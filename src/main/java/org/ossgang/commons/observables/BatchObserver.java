@@ -0,0 +1,45 @@
+package org.ossgang.commons.observables;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An {@link Observer} which consumes values in batches. When subscribed to an observable based on
+ * {@link DispatchingObservable}, all values which accumulated since the last invocation (up to {@link #maxBatchSize()})
+ * are passed to {@link #onValues(List)} at once. Exceptions are still delivered one by one, in order with the values.
+ * Other observables deliver each value as a batch of one.
+ *
+ * @param <T> the item type
+ */
+public interface BatchObserver<T> extends Observer<T> {
+
+    /**
+     * Consume a batch of values, in the order they were dispatched.
+     *
+     * @param values the values, never empty
+     */
+    void onValues(List<T> values);
+
+    @Override
+    default void onValue(T value) {
+        onValues(Collections.singletonList(value));
+    }
+
+    /**
+     * @return the maximum number of values to pass to a single {@link #onValues(List)} invocation
+     */
+    default int maxBatchSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * The maximum time to wait for more values to accumulate after a value was dispatched, before delivering a batch.
+     * A batch is delivered earlier if it reaches {@link #maxBatchSize()}. Ignored for synchronous delivery.
+     *
+     * @return the maximum linger time, {@link Duration#ZERO} (the default) to deliver as soon as possible
+     */
+    default Duration maxLinger() {
+        return Duration.ZERO;
+    }
+}
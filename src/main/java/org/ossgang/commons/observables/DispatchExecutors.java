@@ -0,0 +1,182 @@
+package org.ossgang.commons.observables;
+
+import static org.ossgang.commons.utils.NamedDaemonThreadFactory.daemonThreadFactoryWithPrefix;
+import static org.ossgang.commons.utils.ThreadPools.cachedDaemonPool;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Static support class for the {@link Executor}s which are used by {@link DispatchingObservable} to deliver updates to
+ * observers.
+ * <p>
+ * The executor used for a particular update is resolved in the following order:
+ * <ol>
+ * <li>the executor passed as {@link DispatchOptions#executor(Executor)} when subscribing</li>
+ * <li>the executor passed when creating the observable, e.g.
+ * {@link Observables#dispatcher(Object, java.util.concurrent.Executor)}</li>
+ * <li>the global default executor, see {@link Observables#setDefaultDispatchExecutor(Executor)}</li>
+ * </ol>
+ * Any {@link Executor} can be used (e.g. {@link ForkJoinPool#commonPool()} or an application owned pool). This class
+ * provides factories for the most common choices. If an executor rejects a task, the update is not delivered and an
+ * {@link org.ossgang.commons.observables.exceptions.UpdateDeliveryException} is passed to the uncaught exception
+ * handler.
+ */
+public final class DispatchExecutors {
+    private static final Executor DEFAULT_POOL = cachedDaemonPool("ossgang-commons-DispatchingObservable-dispatcher-");
+    private static final Executor SYNCHRONOUS = Runnable::run;
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            daemonThreadFactoryWithPrefix("ossgang-commons-DispatchExecutors-scheduler-"));
+    private static final AtomicInteger POOL_INDEX = new AtomicInteger(0);
+    private static final int DEFAULT_FAN_OUT_THRESHOLD = 512;
+    private static final int FAN_OUT_LANES = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private static volatile Executor defaultExecutor = DEFAULT_POOL;
+    private static volatile int fanOutThreshold = DEFAULT_FAN_OUT_THRESHOLD;
+    /* 0 if the slow observer watchdog is disabled */
+    private static volatile long slowObserverBudgetNanos = 0;
+    private static volatile Executor slowObserverQuarantine = null;
+
+    private DispatchExecutors() {
+        throw new UnsupportedOperationException("static only");
+    }
+
+    /**
+     * The built-in executor: an unbounded pool of virtual threads on Java 21+, a cached pool of daemon threads otherwise
+     * (see {@link org.ossgang.commons.utils.ThreadPools}). This is the initial global default.
+     *
+     * @return the built-in dispatcher pool
+     */
+    public static Executor defaultPool() {
+        return DEFAULT_POOL;
+    }
+
+    /**
+     * An executor delivering the updates directly on the publishing thread. Using it for an observable has the same
+     * effect as subscribing all its observers with {@link SubscriptionOptions#SYNCHRONOUS}. Single-source operators
+     * (e.g. map or filter) derived from a synchronous observable are synchronous as well, so that a whole chain can be
+     * evaluated on the publishing thread.
+     *
+     * @return the synchronous executor
+     */
+    public static Executor synchronous() {
+        return SYNCHRONOUS;
+    }
+
+    /**
+     * Create a bounded pool of daemon threads. If all threads are busy, tasks are queued up to the given capacity. If
+     * the queue is full, the task is executed on the publishing thread, which naturally throttles the producer.
+     *
+     * @param threads       the maximum number of threads
+     * @param queueCapacity the maximum number of tasks waiting for a thread
+     * @return a new bounded executor
+     */
+    public static ExecutorService boundedPool(int threads, int queueCapacity) {
+        return boundedPool(threads, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Create a bounded pool of daemon threads, with a custom saturation policy which is applied when all threads are
+     * busy and the queue is full.
+     *
+     * @param threads          the maximum number of threads
+     * @param queueCapacity    the maximum number of tasks waiting for a thread
+     * @param saturationPolicy the policy to apply if the pool is saturated
+     * @return a new bounded executor
+     */
+    public static ExecutorService boundedPool(int threads, int queueCapacity,
+                                              RejectedExecutionHandler saturationPolicy) {
+        Objects.requireNonNull(saturationPolicy, "The saturation policy must not be null");
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreadFactoryWithPrefix(nextPoolPrefix()),
+                saturationPolicy);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Create a work-stealing fork-join pool of daemon threads, running tasks in FIFO order.
+     *
+     * @param parallelism the target number of active threads
+     * @return a new fork-join executor
+     */
+    public static ExecutorService forkJoinPool(int parallelism) {
+        String prefix = nextPoolPrefix();
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(prefix + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }, null, true);
+    }
+
+    /**
+     * @return the scheduler used internally for delayed dispatching, e.g. for the linger time of batch observers
+     */
+    static ScheduledExecutorService scheduler() {
+        return SCHEDULER;
+    }
+
+    static Executor defaultExecutor() {
+        return defaultExecutor;
+    }
+
+    static void setDefaultExecutor(Executor executor) {
+        Objects.requireNonNull(executor, "The default dispatch executor must not be null");
+        defaultExecutor = executor;
+    }
+
+    static int fanOutThreshold() {
+        return fanOutThreshold;
+    }
+
+    static void setFanOutThreshold(int subscribers) {
+        if (subscribers < 1) {
+            throw new IllegalArgumentException("The fan-out threshold must be positive, but was " + subscribers);
+        }
+        fanOutThreshold = subscribers;
+    }
+
+    static long slowObserverBudgetNanos() {
+        return slowObserverBudgetNanos;
+    }
+
+    static void setSlowObserverBudget(Duration budget) {
+        Objects.requireNonNull(budget, "The slow observer budget must not be null");
+        if (budget.isNegative()) {
+            throw new IllegalArgumentException("The slow observer budget must not be negative, but was " + budget);
+        }
+        slowObserverBudgetNanos = budget.toNanos();
+    }
+
+    static Executor slowObserverQuarantine() {
+        return slowObserverQuarantine;
+    }
+
+    static void setSlowObserverQuarantine(Executor quarantine) {
+        slowObserverQuarantine = quarantine;
+    }
+
+    /**
+     * @return the number of lanes the subscribers of an observable are split into, once it reached the fan-out threshold
+     */
+    static int fanOutLanes() {
+        return FAN_OUT_LANES;
+    }
+
+    private static String nextPoolPrefix() {
+        return "ossgang-commons-DispatchExecutors-" + POOL_INDEX.getAndIncrement() + "-";
+    }
+}
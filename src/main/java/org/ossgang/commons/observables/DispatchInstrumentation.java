@@ -0,0 +1,94 @@
+package org.ossgang.commons.observables;
+
+/**
+ * A service provider interface to monitor what the observables based on {@link DispatchingObservable} do: which
+ * observables publish updates, how long updates wait for a thread, how long observers take to process them, which
+ * updates are dropped and how many subscribers each observable has.
+ * <p>
+ * An instrumentation is installed globally with {@link Observables#setDispatchInstrumentation(DispatchInstrumentation)}.
+ * Its methods are called on the publishing and delivering threads, so they must be thread safe and cheap. All methods
+ * have an empty default implementation, so that an instrumentation only needs to implement the events it is interested
+ * in. An exception thrown by the instrumentation is printed to the standard error and otherwise ignored.
+ * {@link org.ossgang.commons.observables.metrics.DispatchMetrics} is a ready-to-use implementation collecting counters
+ * and latency histograms.
+ */
+public interface DispatchInstrumentation {
+
+    /**
+     * The instrumentation in use by default, ignoring all events. While it is installed, the observables skip the time
+     * measurements needed for the other events.
+     */
+    DispatchInstrumentation NOOP = new DispatchInstrumentation() {
+        /* all events ignored */
+    };
+
+    /**
+     * An observer subscribed to the given observable.
+     *
+     * @param observable  the observable
+     * @param subscribers the number of subscribers after the subscription
+     */
+    default void subscribed(Observable<?> observable, int subscribers) {
+        /* no op */
+    }
+
+    /**
+     * An observer unsubscribed from the given observable.
+     *
+     * @param observable  the observable
+     * @param subscribers the number of subscribers after the unsubscription
+     */
+    default void unsubscribed(Observable<?> observable, int subscribers) {
+        /* no op */
+    }
+
+    /**
+     * The given observable published updates (values or exceptions) to its subscribers.
+     *
+     * @param observable the observable
+     * @param updates    the number of updates published
+     */
+    default void dispatched(Observable<?> observable, int updates) {
+        /* no op */
+    }
+
+    /**
+     * A task delivering the pending updates of one subscriber of the given observable started.
+     *
+     * @param observable     the observable
+     * @param queueWaitNanos the time the task waited for a thread of the executor, in nanoseconds
+     */
+    default void deliveryStarted(Observable<?> observable, long queueWaitNanos) {
+        /* no op */
+    }
+
+    /**
+     * An observer of the given observable processed an update (or a batch of updates).
+     *
+     * @param observable     the observable
+     * @param executionNanos the time the observer took, in nanoseconds
+     */
+    default void delivered(Observable<?> observable, long executionNanos) {
+        /* no op */
+    }
+
+    /**
+     * An update of the given observable was discarded for one subscriber, e.g. because of a full backlog (see
+     * {@link DispatchOptions#backlog(int, OverflowPolicy)}).
+     *
+     * @param observable the observable
+     */
+    default void dropped(Observable<?> observable) {
+        /* no op */
+    }
+
+    /**
+     * An exception was passed to the uncaught exception handler (see
+     * {@link Observables#setUncaughtExceptionHandler(java.util.function.Consumer)}).
+     *
+     * @param exception the exception
+     */
+    default void uncaughtException(Exception exception) {
+        /* no op */
+    }
+}
@@ -0,0 +1,85 @@
+package org.ossgang.commons.observables;
+
+import java.util.Objects;
+
+/**
+ * Holds the global {@link DispatchInstrumentation}, and notifies it on behalf of the observables. An exception thrown by
+ * the instrumentation is printed, but never propagated: it must neither reach the publisher nor break a delivery loop.
+ */
+final class DispatchInstrumentations {
+    private static volatile DispatchInstrumentation instrumentation = DispatchInstrumentation.NOOP;
+
+    private DispatchInstrumentations() {
+        throw new UnsupportedOperationException("static only");
+    }
+
+    static DispatchInstrumentation instrumentation() {
+        return instrumentation;
+    }
+
+    static void setInstrumentation(DispatchInstrumentation newInstrumentation) {
+        Objects.requireNonNull(newInstrumentation, "The dispatch instrumentation must not be null");
+        instrumentation = newInstrumentation;
+    }
+
+    static void subscribed(Observable<?> observable, int subscribers) {
+        try {
+            instrumentation.subscribed(observable, subscribers);
+        } catch (Throwable e) {
+            printFailure(e);
+        }
+    }
+
+    static void unsubscribed(Observable<?> observable, int subscribers) {
+        try {
+            instrumentation.unsubscribed(observable, subscribers);
+        } catch (Throwable e) {
+            printFailure(e);
+        }
+    }
+
+    static void dispatched(Observable<?> observable, int updates) {
+        try {
+            instrumentation.dispatched(observable, updates);
+        } catch (Throwable e) {
+            printFailure(e);
+        }
+    }
+
+    static void deliveryStarted(Observable<?> observable, long queueWaitNanos) {
+        try {
+            instrumentation.deliveryStarted(observable, queueWaitNanos);
+        } catch (Throwable e) {
+            printFailure(e);
+        }
+    }
+
+    static void delivered(Observable<?> observable, long executionNanos) {
+        try {
+            instrumentation.delivered(observable, executionNanos);
+        } catch (Throwable e) {
+            printFailure(e);
+        }
+    }
+
+    static void dropped(Observable<?> observable) {
+        try {
+            instrumentation.dropped(observable);
+        } catch (Throwable e) {
+            printFailure(e);
+        }
+    }
+
+    static void uncaughtException(Exception exception) {
+        try {
+            instrumentation.uncaughtException(exception);
+        } catch (Throwable e) {
+            printFailure(e);
+        }
+    }
+
+    private static void printFailure(Throwable failure) {
+        System.err.println("[Observable] An exception occurred in the dispatch instrumentation.");
+        failure.printStackTrace();
+    }
+}
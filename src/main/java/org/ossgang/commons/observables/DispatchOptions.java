@@ -0,0 +1,80 @@
+package org.ossgang.commons.observables;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * Parametrized {@link SubscriptionOption}s which control how updates are delivered to one particular observer. They
+ * are supported by all observables based on {@link DispatchingObservable}, and ignored by other implementations.
+ */
+public final class DispatchOptions {
+    private DispatchOptions() {
+        throw new UnsupportedOperationException("static only");
+    }
+
+    /**
+     * Deliver the updates for this subscription on the given executor, instead of the one of the observable.
+     *
+     * @param executor the executor to use for this subscription
+     * @return the subscription option
+     * @see DispatchExecutors
+     */
+    public static SubscriptionOption executor(Executor executor) {
+        return new ExecutorOption(executor);
+    }
+
+    /**
+     * Limit the number of updates waiting to be delivered to this subscription. By default, the backlog is unbounded.
+     *
+     * @param capacity the maximum number of pending updates, must be positive
+     * @param policy   what to do with updates arriving while the backlog is full
+     * @return the subscription option
+     * @see DispatchingSubscription#droppedUpdates()
+     */
+    public static SubscriptionOption backlog(int capacity, OverflowPolicy policy) {
+        return new BacklogOption(capacity, policy);
+    }
+
+    static final class ExecutorOption implements SubscriptionOption {
+        private final Executor executor;
+
+        private ExecutorOption(Executor executor) {
+            this.executor = Objects.requireNonNull(executor, "The executor must not be null");
+        }
+
+        Executor executor() {
+            return executor;
+        }
+
+        @Override
+        public String name() {
+            return "EXECUTOR";
+        }
+    }
+
+    static final class BacklogOption implements SubscriptionOption {
+        private final int capacity;
+        private final OverflowPolicy policy;
+
+        private BacklogOption(int capacity, OverflowPolicy policy) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("The backlog capacity must be positive, but was " + capacity);
+            }
+            this.capacity = capacity;
+            this.policy = Objects.requireNonNull(policy, "The overflow policy must not be null");
+        }
+
+        int capacity() {
+            return capacity;
+        }
+
+        OverflowPolicy policy() {
+            return policy;
+        }
+
+        @Override
+        public String name() {
+            return "BACKLOG";
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.ossgang.commons.observables;
 
+import java.util.Collection;
+
 import org.ossgang.commons.monads.Maybe;
 
 /**
@@ -23,6 +25,17 @@ public interface Dispatcher<T> extends ObservableValue<T> {
      */
     void dispatchValue(T value);
 
+    /**
+     * Dispatch the provided values to subscribers, in the order of the collection. This is equivalent to dispatching
+     * the values one by one, but implementations may deliver them more efficiently, e.g. handing all of them to an
+     * observer at once.
+     *
+     * @param values the values to dispatch
+     */
+    default void dispatchValues(Collection<? extends T> values) {
+        values.forEach(this::dispatchValue);
+    }
+
     /**
      * Convenience method to dispatch a {@link Maybe}. It will diaptch a value or an exception depending of the content
      * of the {@link Maybe}
@@ -22,23 +22,42 @@
 
 package org.ossgang.commons.observables;
 
+import org.ossgang.commons.observables.exceptions.BacklogOverflowException;
+import org.ossgang.commons.observables.exceptions.SlowObserverException;
 import org.ossgang.commons.observables.exceptions.UnhandledException;
 import org.ossgang.commons.observables.exceptions.UpdateDeliveryException;
+import org.ossgang.commons.observables.jfr.ObservableEvents;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
-import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.Collections.emptySet;
 import static org.ossgang.commons.observables.ExceptionHandlers.dispatchToUncaughtExceptionHandler;
-import static org.ossgang.commons.utils.NamedDaemonThreadFactory.daemonThreadFactoryWithPrefix;
+import static org.ossgang.commons.observables.SubscriptionOptions.CONFLATE;
+import static org.ossgang.commons.observables.SubscriptionOptions.FIRST_UPDATE;
+import static org.ossgang.commons.observables.SubscriptionOptions.ON_CHANGE;
+import static org.ossgang.commons.observables.SubscriptionOptions.SYNCHRONOUS;
 
 /**
  * A basic implementation of {@link Observable} managing a set of listeners, and dispatching updates to them.
@@ -46,39 +65,105 @@ import static org.ossgang.commons.utils.NamedDaemonThreadFactory.daemonThreadFac
  * This class makes sure that it will not be garbage collected as long as there is at least one subscriber subscribed
  * to the observable. If there are no subscribers to an observable, it becomes garbage collectible (provided
  * that no other references to it exist).
+ * <p>
+ * Updates are delivered on an {@link Executor}, which can be chosen per subscription, per observable or globally (see
+ * {@link DispatchExecutors}). Each subscriber receives its updates one at a time, in the order they were dispatched,
+ * while different subscribers are served in parallel.
+ * <p>
+ * For observables with many subscribers (see {@link Observables#setFanOutThreshold(int)}), the publishing thread does
+ * not submit the delivery task of every subscriber to the executor itself. It only enqueues the update for each of
+ * them, and the subscribers are split into a fixed number of lanes: the publishing thread submits at most one task per
+ * lane, which submits the delivery tasks of the subscribers of that lane. This moves the executor submissions off the
+ * publishing thread, but publishing still costs one enqueue per subscriber. As the updates are enqueued by the
+ * publishing thread, the lanes affect neither the order of the updates nor the bounded backlogs (see
+ * {@link DispatchOptions#backlog(int, OverflowPolicy)}). Synchronous subscribers are served on the publishing thread.
  *
  * @param <T> the type of the observable
  */
 public class DispatchingObservable<T> implements Observable<T> {
 
-    private static final ExecutorService DISPATCHER_POOL = newCachedThreadPool(
-            daemonThreadFactoryWithPrefix("ossgang-commons-DispatchingObservable-dispatcher-"));
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DispatchingObservable, Object> SUBSCRIBERS = //
+            AtomicReferenceFieldUpdater.newUpdater(DispatchingObservable.class, Object.class, "subscribers");
 
-    private final Map<Observer<? super T>, ObservableSubscription<T>> observers = new ConcurrentHashMap<>();
+    /* null if there are no subscribers, the ObservableSubscription if there is one, a Subscribers snapshot otherwise */
+    private volatile Object subscribers;
+    private final Executor dispatchExecutor;
 
     protected DispatchingObservable() {
+        this(null);
+    }
+
+    /**
+     * @param dispatchExecutor the executor to deliver updates on, or null to use the global default
+     */
+    protected DispatchingObservable(Executor dispatchExecutor) {
+        this.dispatchExecutor = dispatchExecutor;
     }
 
     @Override
     public Subscription subscribe(Observer<? super T> observer, SubscriptionOption... options) {
-        Set<SubscriptionOption> optionSet = new HashSet<>(Arrays.asList(options));
+        Set<SubscriptionOption> optionSet = options.length == 0 ? emptySet() : new HashSet<>(Arrays.asList(options));
         ObservableSubscription<T> subscription = addObserver(observer, optionSet);
         observer.onSubscribe(subscription);
+        T firstUpdate = optionSet.contains(FIRST_UPDATE) ? firstUpdateValue() : null;
+        /*
+         * The subscription is held, the values dispatched since it was added are queued. If there is one by now, it is
+         * at least as recent as the value just read, which is then dropped: delivering it first could make the
+         * observer see a value older than the previous one.
+         */
+        if (firstUpdate != null && !subscription.hasPendingValue()) {
+            subscription.startWith(firstUpdate);
+        } else {
+            subscription.start();
+        }
         return subscription;
     }
 
+    /**
+     * The value to deliver to new subscribers which requested {@link SubscriptionOptions#FIRST_UPDATE}.
+     *
+     * @return the value, or null if there is none
+     */
+    T firstUpdateValue() {
+        return null;
+    }
+
     private ObservableSubscription<T> addObserver(Observer<? super T> observer, Set<SubscriptionOption> options) {
         ObservableSubscription<T> subscription = new ObservableSubscription<>(this, observer, options);
-        if (observers.put(observer, subscription) == null) {
+        Object current;
+        Object updated;
+        do {
+            current = subscribers;
+            updated = Subscribers.with(this, current, subscription);
+        } while (!SUBSCRIBERS.compareAndSet(this, current, updated));
+        Subscribers.assignLanes(updated);
+        ObservableSubscription<T> replaced = Subscribers.find(current, observer);
+        if (replaced == null) {
+            DispatchInstrumentations.subscribed(this, Subscribers.count(updated));
             subscriptionAdded(observer, options);
+        } else {
+            replaced.cancel();
         }
         return subscription;
     }
 
-    private void removeListener(Observer<? super T> listener) {
-        if (observers.remove(listener) != null) {
-            subscriptionRemoved(listener);
-        }
+    private void removeListener(ObservableSubscription<T> subscription) {
+        subscription.cancel();
+        Object current;
+        Object updated;
+        ObservableSubscription<T> removed;
+        do {
+            current = subscribers;
+            removed = Subscribers.find(current, subscription.listener);
+            if (removed == null) {
+                return;
+            }
+            updated = Subscribers.without(current, removed);
+        } while (!SUBSCRIBERS.compareAndSet(this, current, updated));
+        removed.cancel();
+        DispatchInstrumentations.unsubscribed(this, Subscribers.count(updated));
+        subscriptionRemoved(subscription.listener);
     }
 
     protected void subscriptionAdded(Observer<? super T> listener, Set<SubscriptionOption> options) {
@@ -89,67 +174,1022 @@ public class DispatchingObservable<T> implements Observable<T> {
         /* no op */
     }
 
+    /**
+     * @return the number of observers currently subscribed to this observable
+     */
+    public int subscriberCount() {
+        return Subscribers.count(subscribers);
+    }
+
+    /**
+     * @return the observers currently subscribed to this observable
+     */
+    List<Observer<?>> observers() {
+        List<Observer<?>> observers = new ArrayList<>();
+        for (ObservableSubscription<T> subscription : Subscribers.<T> all(subscribers)) {
+            observers.add(subscription.listener);
+        }
+        return observers;
+    }
+
     protected void unsubscribeAllObservers() {
-        Set<Subscription> allSubscriptions = new HashSet<>(observers.values());
-        allSubscriptions.forEach(Subscription::unsubscribe);
+        for (ObservableSubscription<T> subscription : Subscribers.<T> all(subscribers)) {
+            subscription.unsubscribe();
+        }
     }
 
+    @SuppressWarnings("unchecked")
     protected void dispatchValue(T newValue) {
-        dispatchValue(newValue, any -> true);
+        instrumentDispatch(1);
+        Object current = subscribers;
+        if (current == null) {
+            return;
+        }
+        Object update = traced(newValue);
+        if (current instanceof ObservableSubscription) {
+            ((ObservableSubscription<T>) current).enqueue(update);
+        } else {
+            for (ObservableSubscription<T> subscription : ((Subscribers<T>) current).all) {
+                subscription.enqueue(update);
+            }
+        }
+    }
+
+    /**
+     * Dispatch several values, in order. Each subscriber gets all the values at once, so that they are delivered within
+     * a single task on the executor.
+     *
+     * @param values the values to dispatch
+     */
+    protected void dispatchValues(Collection<? extends T> values) {
+        boolean[] changed = new boolean[values.size()];
+        Arrays.fill(changed, true);
+        dispatchBatch(values.toArray(), changed);
+    }
+
+    /**
+     * Dispatch several values, in order, to all subscribers. The values for which the changed flag is false are skipped
+     * for the subscribers which only want to be notified on changes (see {@link SubscriptionOptions#ON_CHANGE}).
+     *
+     * @param values  the values to dispatch
+     * @param changed for each value, whether it changed the state of the observable
+     */
+    void dispatchBatch(Object[] values, boolean[] changed) {
+        instrumentDispatch(values.length);
+        Object current = subscribers;
+        TraceContext context = TraceContext.forDispatch();
+        if (context != null) {
+            values = values.clone();
+            for (int i = 0; i < values.length; i++) {
+                values[i] = new TracedUpdate(values[i], context);
+            }
+        }
+        for (ObservableSubscription<T> subscription : Subscribers.<T> all(current)) {
+            subscription.enqueueAll(values, changed);
+        }
+    }
+
+    /**
+     * Dispatch a value which is equal to the previous one, i.e. skipping the subscribers which only want to be notified
+     * on changes (see {@link SubscriptionOptions#ON_CHANGE}).
+     *
+     * @param newValue the value to dispatch
+     */
+    @SuppressWarnings("unchecked")
+    void dispatchUnchangedValue(T newValue) {
+        instrumentDispatch(1);
+        Object current = subscribers;
+        if (current == null) {
+            return;
+        }
+        Object update = traced(newValue);
+        if (current instanceof ObservableSubscription) {
+            ObservableSubscription<T> subscription = (ObservableSubscription<T>) current;
+            if (!subscription.hasOption(ON_CHANGE)) {
+                subscription.enqueue(update);
+            }
+        } else {
+            for (ObservableSubscription<T> subscription : ((Subscribers<T>) current).allUpdates) {
+                subscription.enqueue(update);
+            }
+        }
     }
 
     protected void dispatchValue(T newValue, Predicate<Set<SubscriptionOption>> optionPredicate) {
-        observers.entrySet().stream() //
-                .filter(entry -> optionPredicate.test(entry.getValue().options)) //
-                .map(Map.Entry::getKey) //
-                .forEach(l -> dispatch(l::onValue, newValue));
+        dispatchMatching(traced(newValue), optionPredicate);
     }
 
     protected void dispatchException(Throwable exception) {
-        dispatchException(exception, any -> true);
+        instrumentDispatch(1);
+        Object current = subscribers;
+        if (current == null) {
+            dispatchToUncaughtExceptionHandler(new UnhandledException(exception));
+            return;
+        }
+        ExceptionUpdate update = new ExceptionUpdate(exception);
+        for (ObservableSubscription<T> subscription : Subscribers.<T> all(current)) {
+            subscription.enqueue(update);
+        }
     }
 
     protected void dispatchException(Throwable exception, Predicate<Set<SubscriptionOption>> optionPredicate) {
-        AtomicBoolean wasDispatched = new AtomicBoolean(false);
-        observers.entrySet().stream() //
-                .filter(entry -> optionPredicate.test(entry.getValue().options)) //
-                .map(Map.Entry::getKey) //
-                .forEach(l -> {
-                    dispatch(l::onException, exception);
-                    wasDispatched.set(true);
-                });
-        if (!wasDispatched.get()) {
+        if (!dispatchMatching(new ExceptionUpdate(exception), optionPredicate)) {
             dispatchToUncaughtExceptionHandler(new UnhandledException(exception));
         }
     }
 
+    /**
+     * Dispatch an update to the subscribers whose options match the given predicate.
+     *
+     * @return true if there was at least one matching subscriber
+     */
+    private boolean dispatchMatching(Object update, Predicate<Set<SubscriptionOption>> optionPredicate) {
+        instrumentDispatch(1);
+        boolean wasDispatched = false;
+        for (ObservableSubscription<T> subscription : Subscribers.<T> all(subscribers)) {
+            if (optionPredicate.test(subscription.options)) {
+                subscription.enqueue(update);
+                wasDispatched = true;
+            }
+        }
+        return wasDispatched;
+    }
+
     protected <X> Future<?> dispatch(Consumer<X> handler, X value) {
-        return DISPATCHER_POOL.submit(() -> {
-            try {
-                handler.accept(value);
-            } catch (UnhandledException e) {
-                dispatchToUncaughtExceptionHandler(e);
-            } catch (Exception e) {
-                dispatchToUncaughtExceptionHandler(new UpdateDeliveryException(value, e));
+        instrumentDispatch(1);
+        FutureTask<?> task = new FutureTask<>(() -> deliver(handler, value), null);
+        try {
+            executor().execute(task);
+            return task;
+        } catch (RejectedExecutionException e) {
+            dispatchToUncaughtExceptionHandler(new UpdateDeliveryException(value, e));
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * @return the value tagged with the trace context of the update being processed, or a new one, if tracing is
+     *         enabled; the value itself otherwise
+     */
+    private static Object traced(Object value) {
+        TraceContext context = TraceContext.forDispatch();
+        return context != null ? new TracedUpdate(value, context) : value;
+    }
+
+    private void instrumentDispatch(int updates) {
+        ObservableEvents.dispatched(this, updates);
+        if (DispatchInstrumentations.instrumentation() != DispatchInstrumentation.NOOP) {
+            DispatchInstrumentations.dispatched(this, updates);
+        }
+    }
+
+    /**
+     * @return the executor this observable delivers its updates on, if not overridden per subscription
+     */
+    protected Executor executor() {
+        return dispatchExecutor != null ? dispatchExecutor : DispatchExecutors.defaultExecutor();
+    }
+
+    private Executor executorFor(ObservableSubscription<T> subscription) {
+        if (subscription.quarantine != null) {
+            return subscription.quarantine;
+        }
+        return subscription.executor != null ? subscription.executor : executor();
+    }
+
+    /**
+     * @param observable the observable to check
+     * @return true if the observable delivers its updates on the publishing thread (see
+     *         {@link DispatchExecutors#synchronous()})
+     */
+    protected static boolean isSynchronous(Observable<?> observable) {
+        return observable instanceof DispatchingObservable
+                && ((DispatchingObservable<?>) observable).executor() == DispatchExecutors.synchronous();
+    }
+
+    private static <X> void deliver(Consumer<X> handler, X value) {
+        try {
+            handler.accept(value);
+        } catch (UnhandledException e) {
+            dispatchToUncaughtExceptionHandler(e);
+        } catch (Throwable e) {
+            /* errors too: escaping the drain loop, they would leave the subscription busy forever */
+            dispatchToUncaughtExceptionHandler(new UpdateDeliveryException(value, e));
+        }
+    }
+
+    /**
+     * An immutable snapshot of two or more subscriptions, replaced as a whole (copy-on-write) when a subscriber is added
+     * or removed. The subscriptions are pre-partitioned, so that publishing an update iterates a plain array, without
+     * any allocation or per-subscriber option lookup.
+     * <p>
+     * As most observables have at most one subscriber, an observable without subscribers holds null and an observable
+     * with a single subscriber holds the subscription itself; the static methods of this class handle all three cases.
+     * <p>
+     * Once the number of subscribers reached the fan-out threshold, the snapshot also holds the {@link FanOutLane}s of
+     * the observable, which are handed over to all subsequent snapshots. Once such a snapshot is installed, each
+     * asynchronous subscription is assigned to one of them. A subscription always keeps the lane it was assigned to.
+     */
+    private static final class Subscribers<T> {
+        @SuppressWarnings("rawtypes")
+        private static final ObservableSubscription[] NONE = new ObservableSubscription[0];
+
+        /* all subscriptions */
+        private final ObservableSubscription<T>[] all;
+        /* the subscriptions which also receive updates not changing the value, i.e. not ON_CHANGE */
+        private final ObservableSubscription<T>[] allUpdates;
+        /* the fan-out lanes, or null if the threshold was never reached */
+        private final FanOutLane[] lanes;
+
+        private Subscribers(ObservableSubscription<T>[] all, FanOutLane[] lanes) {
+            this.all = all;
+            this.allUpdates = matching(all, subscription -> !subscription.hasOption(ON_CHANGE));
+            this.lanes = lanes;
+        }
+
+        /* only once the snapshot is installed, so that no subscription keeps a lane of a discarded snapshot */
+        private static void assignLanes(Object subscribers) {
+            FanOutLane[] lanes = lanes(subscribers);
+            if (lanes == null) {
+                return;
             }
-        });
+            for (ObservableSubscription<?> subscription : ((Subscribers<?>) subscribers).all) {
+                if (subscription.lane == null && !subscription.isSynchronous()) {
+                    subscription.lane = lanes[laneOf(subscription, lanes.length)];
+                }
+            }
+        }
+
+        private static int laneOf(ObservableSubscription<?> subscription, int laneCount) {
+            return (System.identityHashCode(subscription) & Integer.MAX_VALUE) % laneCount;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> ObservableSubscription<T>[] matching(ObservableSubscription<T>[] subscriptions,
+                                                                Predicate<ObservableSubscription<T>> predicate) {
+            return Arrays.stream(subscriptions).filter(predicate).toArray(ObservableSubscription[]::new);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> ObservableSubscription<T>[] all(Object subscribers) {
+            if (subscribers instanceof ObservableSubscription) {
+                return (ObservableSubscription<T>[]) new ObservableSubscription<?>[] {
+                        (ObservableSubscription<?>) subscribers };
+            }
+            return subscribers != null ? ((Subscribers<T>) subscribers).all : NONE;
+        }
+
+        private static int count(Object subscribers) {
+            if (subscribers instanceof Subscribers) {
+                return ((Subscribers<?>) subscribers).all.length;
+            }
+            return subscribers != null ? 1 : 0;
+        }
+
+        private static FanOutLane[] lanes(Object subscribers) {
+            return subscribers instanceof Subscribers ? ((Subscribers<?>) subscribers).lanes : null;
+        }
+
+        private static <T> ObservableSubscription<T> find(Object subscribers, Observer<?> listener) {
+            for (ObservableSubscription<T> subscription : Subscribers.<T> all(subscribers)) {
+                if (subscription.listener.equals(listener)) {
+                    return subscription;
+                }
+            }
+            return null;
+        }
+
+        /* adds the subscription, replacing a previous subscription of the same listener */
+        private static <T> Object with(DispatchingObservable<T> observable, Object subscribers,
+                                       ObservableSubscription<T> added) {
+            ObservableSubscription<T> replaced = find(subscribers, added.listener);
+            if (replaced != null) {
+                return with(observable, without(subscribers, replaced), added);
+            }
+            ObservableSubscription<T>[] all = all(subscribers);
+            FanOutLane[] lanes = lanes(subscribers);
+            if (lanes == null && all.length + 1 >= DispatchExecutors.fanOutThreshold()
+                    && !isSynchronous(observable)) {
+                lanes = FanOutLane.create(observable);
+            }
+            if (subscribers == null && lanes == null) {
+                return added;
+            }
+            ObservableSubscription<T>[] subscriptions = Arrays.copyOf(all, all.length + 1);
+            subscriptions[all.length] = added;
+            return new Subscribers<>(subscriptions, lanes);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Object without(Object subscribers, ObservableSubscription<T> removed) {
+            ObservableSubscription<T>[] remaining = matching(Subscribers.<T> all(subscribers),
+                    subscription -> subscription != removed);
+            FanOutLane[] lanes = lanes(subscribers);
+            if (remaining.length == 0) {
+                return null;
+            }
+            return remaining.length == 1 && lanes == null ? remaining[0] : new Subscribers<>(remaining, lanes);
+        }
     }
 
-    private static class ObservableSubscription<T> implements Subscription {
+    /**
+     * Submits the delivery tasks of a share of the subscriptions of an observable with many subscribers, on the
+     * executor of the observable. The publishing thread only hands over the subscriptions which went from idle to busy,
+     * so a lane never holds a subscription more than once. If the executor rejects the lane, the publishing thread runs
+     * it.
+     */
+    private static final class FanOutLane implements Runnable {
+        private static final AtomicIntegerFieldUpdater<FanOutLane> WORK_IN_PROGRESS = //
+                AtomicIntegerFieldUpdater.newUpdater(FanOutLane.class, "workInProgress");
+
+        private final DispatchingObservable<?> observable;
+        private final Queue<ObservableSubscription<?>> ready = new ConcurrentLinkedQueue<>();
+        private volatile int workInProgress;
+
+        private FanOutLane(DispatchingObservable<?> observable) {
+            this.observable = observable;
+        }
+
+        private static FanOutLane[] create(DispatchingObservable<?> observable) {
+            FanOutLane[] lanes = new FanOutLane[DispatchExecutors.fanOutLanes()];
+            for (int lane = 0; lane < lanes.length; lane++) {
+                lanes[lane] = new FanOutLane(observable);
+            }
+            return lanes;
+        }
+
+        private void submit(ObservableSubscription<?> subscription) {
+            ready.offer(subscription);
+            if (WORK_IN_PROGRESS.getAndIncrement(this) == 0) {
+                try {
+                    observable.executor().execute(this);
+                } catch (RejectedExecutionException e) {
+                    run();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            while (true) {
+                ObservableSubscription<?> subscription;
+                while ((subscription = ready.poll()) != null) {
+                    subscription.startDrain();
+                }
+                missed = WORK_IN_PROGRESS.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * A value in the update queue of a subscription, tagged with its trace context.
+     */
+    private static final class TracedUpdate {
+        private final Object value;
+        private final TraceContext context;
+
+        private TracedUpdate(Object value, TraceContext context) {
+            this.value = value;
+            this.context = context;
+        }
+
+        private static Object valueOf(Object update) {
+            return update instanceof TracedUpdate ? ((TracedUpdate) update).value : update;
+        }
+    }
+
+    /**
+     * Marks an exception in the update queue of a subscription, to distinguish it from a value.
+     */
+    private static class ExceptionUpdate {
+        private final Throwable exception;
+
+        private ExceptionUpdate(Throwable exception) {
+            this.exception = exception;
+        }
+    }
+
+    /**
+     * The exception queued for a subscription with {@link OverflowPolicy#FAIL} when its backlog overflows.
+     */
+    private static final class OverflowUpdate extends ExceptionUpdate {
+        private OverflowUpdate(int capacity) {
+            super(new BacklogOverflowException(capacity));
+        }
+    }
+
+    /**
+     * A subscription delivering its updates serially, in the order they were dispatched: updates are put into a
+     * lock-free queue, which is drained by at most one task on the executor at a time. A task delivers several pending
+     * updates before giving its thread back to the executor.
+     * <p>
+     * If the observable has many subscribers, the drain task is submitted by the {@link FanOutLane} of the subscription
+     * rather than by the publishing thread.
+     * <p>
+     * If the executor is {@link DispatchExecutors#synchronous() synchronous}, the queue is drained by the publishing
+     * thread which found it idle. This acts as a trampoline: updates published while delivering are queued instead of
+     * re-entering the observer.
+     * <p>
+     * A subscription is created "held", so that no update is delivered before {@link Observer#onSubscribe(Subscription)}
+     * returned (and the first update, if any, was delivered).
+     * <p>
+     * If a {@link DispatchOptions#backlog(int, OverflowPolicy) backlog} is configured, the number of queued updates is
+     * tracked and the overflow policy is applied by the publishing thread. A {@link SubscriptionOptions#CONFLATE}
+     * subscription uses a single slot for the values, which always holds the latest pending value. Exceptions are never
+     * conflated: they are queued, behind the value pending at that time.
+     * <p>
+     * A {@link BatchObserver} gets the consecutive values found in the queue at once. If it has a linger time, the first
+     * signal after the queue ran empty does not schedule the drain task right away, but after the linger time (or as
+     * soon as a full batch is pending).
+     * <p>
+     * If the slow observer watchdog is enabled, each delivery is timed. An observer exceeding the budget is reported,
+     * and possibly moved to the quarantine executor: the current drain loop then hands the pending updates over to it.
+     */
+    private static class ObservableSubscription<T> implements DispatchingSubscription, Runnable {
+        private static final int MAX_UPDATES_PER_RUN = 64;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<ObservableSubscription> WORK_IN_PROGRESS = //
+                AtomicIntegerFieldUpdater.newUpdater(ObservableSubscription.class, "workInProgress");
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<ObservableSubscription> QUEUED = //
+                AtomicIntegerFieldUpdater.newUpdater(ObservableSubscription.class, "queued");
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<ObservableSubscription> DROPPED = //
+                AtomicLongFieldUpdater.newUpdater(ObservableSubscription.class, "dropped");
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<ObservableSubscription> OVERFLOW_SIGNALLED = //
+                AtomicIntegerFieldUpdater.newUpdater(ObservableSubscription.class, "overflowSignalled");
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<ObservableSubscription> LINGERING = //
+                AtomicIntegerFieldUpdater.newUpdater(ObservableSubscription.class, "lingering");
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<ObservableSubscription, Object> LATEST = //
+                AtomicReferenceFieldUpdater.newUpdater(ObservableSubscription.class, Object.class, "latest");
+
         private final Observer<? super T> listener;
         private final Set<SubscriptionOption> options;
+        private final int optionFlags;
+        private final Executor executor;
         private final DispatchingObservable<T> observable;
+        /* the pending updates; for a conflating subscription, only the exceptions and the values pending before them */
+        private final Queue<Object> updates;
+        private final int capacity;
+        private final OverflowPolicy overflowPolicy;
+        /* the publishing threads waiting for room in the backlog, only for OverflowPolicy.BLOCK_PRODUCER */
+        private final Queue<Thread> blockedProducers;
+        private final boolean conflate;
+        /* the listener, if it consumes batches of values */
+        private final BatchObserver<Object> batchObserver;
+        private final int maxBatchSize;
+        private final long lingerNanos;
+        private final boolean countQueued;
+        /* the number of signals not yet acknowledged by the drain loop, starts at 1 while the subscription is held */
+        private volatile int workInProgress = 1;
+        /* only tracked if there is a bounded backlog or a linger time */
+        private volatile int queued;
+        /* 1 while a delivery is delayed for the linger time of a batch observer */
+        private volatile int lingering;
+        private volatile long dropped;
+        private volatile int overflowSignalled;
+        /* the pending value of a conflating subscription */
+        private volatile Object latest;
+        private volatile Thread drainingThread;
+        private volatile boolean cancelled;
+        /* the executor this subscription was moved to because its observer was too slow */
+        private volatile Executor quarantine;
+        /* the fan-out lane submitting the drain task, once the observable has many subscribers */
+        private volatile FanOutLane lane;
+        /* set by the draining thread when the subscription was just quarantined, to move the pending updates */
+        private boolean relocate;
+        /* when the drain task was last submitted to the executor, 0 if unknown */
+        private volatile long scheduledNanos;
+        private T firstUpdate;
+        private CountDownLatch firstUpdateDelivered;
 
+        @SuppressWarnings("unchecked")
         private ObservableSubscription(DispatchingObservable<T> observable, Observer<? super T> listener,
                                        Set<SubscriptionOption> options) {
             this.observable = observable;
             this.listener = listener;
             this.options = options;
+            this.optionFlags = flagsOf(options);
+            this.executor = hasOption(SYNCHRONOUS) ? DispatchExecutors.synchronous()
+                    : option(options, DispatchOptions.ExecutorOption.class) //
+                            .map(DispatchOptions.ExecutorOption::executor) //
+                            .orElse(null);
+            Optional<DispatchOptions.BacklogOption> backlog = option(options, DispatchOptions.BacklogOption.class);
+            this.capacity = backlog.map(DispatchOptions.BacklogOption::capacity).orElse(Integer.MAX_VALUE);
+            this.overflowPolicy = backlog.map(DispatchOptions.BacklogOption::policy).orElse(null);
+            this.blockedProducers = overflowPolicy == OverflowPolicy.BLOCK_PRODUCER ? new ConcurrentLinkedQueue<>()
+                    : null;
+            this.conflate = hasOption(CONFLATE);
+            this.updates = new ConcurrentLinkedQueue<>();
+            this.batchObserver = listener instanceof BatchObserver ? (BatchObserver<Object>) listener : null;
+            this.maxBatchSize = batchObserver != null ? Math.max(1, batchObserver.maxBatchSize()) : 1;
+            this.lingerNanos = batchObserver != null ? Math.max(0, batchObserver.maxLinger().toNanos()) : 0;
+            this.countQueued = overflowPolicy != null || lingerNanos > 0;
+        }
+
+        private static int flagsOf(Set<SubscriptionOption> options) {
+            int flags = 0;
+            for (SubscriptionOption option : options) {
+                if (option instanceof SubscriptionOptions) {
+                    flags |= 1 << ((SubscriptionOptions) option).ordinal();
+                }
+            }
+            return flags;
+        }
+
+        private boolean hasOption(SubscriptionOptions option) {
+            return (optionFlags & (1 << option.ordinal())) != 0;
+        }
+
+        private static <O extends SubscriptionOption> Optional<O> option(Set<SubscriptionOption> options,
+                                                                         Class<O> optionClass) {
+            return options.stream().filter(optionClass::isInstance).map(optionClass::cast).findAny();
+        }
+
+        private void start() {
+            if (WORK_IN_PROGRESS.decrementAndGet(this) != 0) {
+                schedule();
+            }
+        }
+
+        private void startWith(T value) {
+            CountDownLatch latch = new CountDownLatch(1);
+            firstUpdate = value;
+            firstUpdateDelivered = latch;
+            schedule();
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void enqueue(Object update) {
+            if (conflate) {
+                conflate(update);
+                return;
+            }
+            if (overflowPolicy != null) {
+                if (!reserve()) {
+                    return;
+                }
+            } else if (countQueued) {
+                QUEUED.incrementAndGet(this);
+            } else if (deliveredInline(update)) {
+                return;
+            }
+            updates.offer(update);
+            signal();
+            if (lingering != 0 && queued >= maxBatchSize) {
+                flush();
+            }
+        }
+
+        private void enqueueAll(Object[] batch, boolean[] changed) {
+            boolean changesOnly = hasOption(ON_CHANGE);
+            if (conflate || countQueued) {
+                for (int i = 0; i < batch.length; i++) {
+                    if (changed[i] || !changesOnly) {
+                        enqueue(batch[i]);
+                    }
+                }
+                return;
+            }
+            boolean added = false;
+            for (int i = 0; i < batch.length; i++) {
+                if (changed[i] || !changesOnly) {
+                    updates.offer(batch[i]);
+                    added = true;
+                }
+            }
+            if (added) {
+                signal();
+            }
+        }
+
+        /**
+         * For a synchronous subscription which is idle, deliver the update right away without queueing it. Updates
+         * queued meanwhile by other threads (or by the observer itself) are delivered afterwards.
+         *
+         * @return true if the update was delivered
+         */
+        private boolean deliveredInline(Object update) {
+            if (workInProgress != 0 || !isSynchronous() || !WORK_IN_PROGRESS.compareAndSet(this, 0, 1)) {
+                return false;
+            }
+            drainingThread = Thread.currentThread();
+            try {
+                deliver(update);
+                if (relocated()) {
+                    return true;
+                }
+                drain();
+            } finally {
+                drainingThread = null;
+            }
+            return true;
+        }
+
+        private void conflate(Object update) {
+            if (update instanceof ExceptionUpdate) {
+                /* the pending value keeps its place before the exception, later values are conflated again */
+                Object pending = LATEST.getAndSet(this, null);
+                if (pending != null) {
+                    updates.offer(pending);
+                }
+                updates.offer(update);
+                signal();
+                return;
+            }
+            if (LATEST.getAndSet(this, update) == null) {
+                signal();
+            } else {
+                recordDrop();
+            }
+        }
+
+        private void signal() {
+            if (WORK_IN_PROGRESS.getAndIncrement(this) == 0) {
+                FanOutLane fanOutLane = lane;
+                if (fanOutLane != null) {
+                    fanOutLane.submit(this);
+                } else {
+                    startDrain();
+                }
+            }
+        }
+
+        private void startDrain() {
+            if (lingerNanos > 0 && !isSynchronous()) {
+                linger();
+            } else {
+                schedule();
+            }
+        }
+
+        /* delay the delivery by the linger time, unless the batch gets full earlier */
+        private void linger() {
+            lingering = 1;
+            DispatchExecutors.scheduler().schedule(this::flush, lingerNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void flush() {
+            if (LINGERING.compareAndSet(this, 1, 0)) {
+                schedule();
+            }
+        }
+
+        /**
+         * Make room for one update in the bounded backlog, according to the overflow policy.
+         *
+         * @return true if the update should be queued, false if it was discarded
+         */
+        private boolean reserve() {
+            if (QUEUED.incrementAndGet(this) <= capacity) {
+                return true;
+            }
+            switch (overflowPolicy) {
+            case DROP_OLDEST:
+                if (evictOldestValue()) {
+                    QUEUED.decrementAndGet(this);
+                    recordDrop();
+                }
+                return true;
+            case BLOCK_PRODUCER:
+                QUEUED.decrementAndGet(this);
+                return awaitRoom();
+            case FAIL:
+                QUEUED.decrementAndGet(this);
+                recordDrop();
+                if (OVERFLOW_SIGNALLED.compareAndSet(this, 0, 1)) {
+                    QUEUED.incrementAndGet(this);
+                    updates.offer(new OverflowUpdate(capacity));
+                    signal();
+                }
+                return false;
+            case DROP_NEWEST:
+            default:
+                QUEUED.decrementAndGet(this);
+                recordDrop();
+                return false;
+            }
+        }
+
+        /* the exceptions (including the overflow signal) must reach the observer, only values are evicted */
+        private boolean evictOldestValue() {
+            for (Object update : updates) {
+                if (!(update instanceof ExceptionUpdate) && updates.remove(update)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void recordDrop() {
+            DROPPED.incrementAndGet(this);
+            if (DispatchInstrumentations.instrumentation() != DispatchInstrumentation.NOOP) {
+                DispatchInstrumentations.dropped(observable);
+            }
+        }
+
+        /* parks until the drain loop took an update out of the backlog, or the subscription is cancelled */
+        private boolean awaitRoom() {
+            Thread producer = Thread.currentThread();
+            while (true) {
+                int pending = queued;
+                if (pending < capacity || drainingThread == producer) {
+                    if (QUEUED.compareAndSet(this, pending, pending + 1)) {
+                        return true;
+                    }
+                    continue;
+                }
+                if (cancelled || producer.isInterrupted()) {
+                    recordDrop();
+                    return false;
+                }
+                blockedProducers.offer(producer);
+                /* checked again once registered, not to miss a wake-up signalled meanwhile */
+                if (queued >= capacity && !cancelled) {
+                    LockSupport.park(this);
+                }
+                blockedProducers.remove(producer);
+            }
+        }
+
+        private void wakeBlockedProducers() {
+            for (Thread producer : blockedProducers) {
+                LockSupport.unpark(producer);
+            }
+        }
+
+        private Object poll() {
+            if (conflate) {
+                Object update = updates.poll();
+                return update != null ? update : LATEST.getAndSet(this, null);
+            }
+            Object update = updates.poll();
+            if (update != null && countQueued) {
+                QUEUED.decrementAndGet(this);
+                if (blockedProducers != null && !blockedProducers.isEmpty()) {
+                    wakeBlockedProducers();
+                }
+            }
+            return update;
+        }
+
+        private boolean isSynchronous() {
+            return observable.executorFor(this) == DispatchExecutors.synchronous();
+        }
+
+        private boolean hasPending() {
+            return !updates.isEmpty() || (conflate && latest != null);
+        }
+
+        /* only while the subscription is held, i.e. while the queue is not drained */
+        private boolean hasPendingValue() {
+            if (conflate && latest != null) {
+                return true;
+            }
+            for (Object update : updates) {
+                if (!(update instanceof ExceptionUpdate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void schedule() {
+            if (DispatchInstrumentations.instrumentation() != DispatchInstrumentation.NOOP) {
+                scheduledNanos = System.nanoTime();
+            }
+            try {
+                observable.executorFor(this).execute(this);
+            } catch (RejectedExecutionException e) {
+                discardPending(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (DispatchInstrumentations.instrumentation() != DispatchInstrumentation.NOOP && scheduledNanos != 0) {
+                DispatchInstrumentations.deliveryStarted(observable, System.nanoTime() - scheduledNanos);
+                scheduledNanos = 0;
+            }
+            drainingThread = Thread.currentThread();
+            try {
+                drain();
+            } finally {
+                drainingThread = null;
+            }
+        }
+
+        private void drain() {
+            if (firstUpdateDelivered != null) {
+                deliverFirstUpdate();
+            }
+            int missed = 1;
+            int delivered = 0;
+            while (true) {
+                Object update;
+                while ((update = poll()) != null) {
+                    if (batchObserver != null && !(update instanceof ExceptionUpdate)) {
+                        update = deliverBatch(update);
+                    }
+                    if (update != null) {
+                        deliver(update);
+                    }
+                    if (relocated()) {
+                        return;
+                    }
+                    if (++delivered == MAX_UPDATES_PER_RUN && hasPending() && !isSynchronous()) {
+                        schedule();
+                        return;
+                    }
+                }
+                missed = WORK_IN_PROGRESS.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * If the subscription was just quarantined and updates are pending, hand the drain loop over to the quarantine
+         * executor.
+         *
+         * @return true if the drain loop was handed over, and the current thread must stop draining
+         */
+        private boolean relocated() {
+            if (!relocate) {
+                return false;
+            }
+            relocate = false;
+            if (!hasPending()) {
+                return false;
+            }
+            schedule();
+            return true;
+        }
+
+        /**
+         * Deliver to the observer, measuring the time it takes if the slow observer watchdog, an instrumentation or a
+         * flight recording is enabled.
+         */
+        private <X> void watched(Consumer<X> handler, X value) {
+            long budgetNanos = DispatchExecutors.slowObserverBudgetNanos();
+            if (budgetNanos == 0 && DispatchInstrumentations.instrumentation() == DispatchInstrumentation.NOOP
+                    && !ObservableEvents.isRecording()) {
+                DispatchingObservable.deliver(handler, value);
+                return;
+            }
+            Object event = ObservableEvents.beginDelivery();
+            long start = System.nanoTime();
+            DispatchingObservable.deliver(handler, value);
+            long elapsedNanos = System.nanoTime() - start;
+            ObservableEvents.delivered(event, observable, listener);
+            DispatchInstrumentations.delivered(observable, elapsedNanos);
+            if (budgetNanos != 0 && elapsedNanos > budgetNanos) {
+                slowDelivery(elapsedNanos, budgetNanos);
+            }
+        }
+
+        private void slowDelivery(long elapsedNanos, long budgetNanos) {
+            Executor quarantineExecutor = DispatchExecutors.slowObserverQuarantine();
+            if (quarantine == null && quarantineExecutor != null) {
+                quarantine = quarantineExecutor;
+                relocate = true;
+            }
+            dispatchToUncaughtExceptionHandler(new SlowObserverException(listener, Duration.ofNanos(elapsedNanos),
+                    Duration.ofNanos(budgetNanos), quarantine != null));
+        }
+
+        private void deliverFirstUpdate() {
+            CountDownLatch latch = firstUpdateDelivered;
+            firstUpdateDelivered = null;
+            try {
+                if (!cancelled) {
+                    watched(listener::onValue, firstUpdate);
+                }
+            } finally {
+                firstUpdate = null;
+                latch.countDown();
+            }
+        }
+
+        /**
+         * Deliver the given value and the following ones to the batch observer, up to the maximum batch size or the
+         * next exception.
+         *
+         * @return the exception update which ended the batch, to be delivered next, or null
+         */
+        private Object deliverBatch(Object firstValue) {
+            List<Object> batch = new ArrayList<>();
+            batch.add(TracedUpdate.valueOf(firstValue));
+            Object last = firstValue;
+            Object next = null;
+            while (batch.size() < maxBatchSize && (next = poll()) != null) {
+                if (next instanceof ExceptionUpdate) {
+                    break;
+                }
+                batch.add(TracedUpdate.valueOf(next));
+                last = next;
+                next = null;
+            }
+            if (!cancelled) {
+                /* the batch is processed in the trace context of its latest value */
+                TraceContext previous = last instanceof TracedUpdate ? TraceContext.enter(((TracedUpdate) last).context)
+                        : null;
+                try {
+                    watched(batchObserver::onValues, batch);
+                } finally {
+                    if (last instanceof TracedUpdate) {
+                        TraceContext.exit(previous);
+                    }
+                }
+            }
+            return next;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void deliver(Object update) {
+            if (cancelled) {
+                return;
+            }
+            if (update instanceof OverflowUpdate) {
+                overflowSignalled = 0;
+            }
+            if (update instanceof ExceptionUpdate) {
+                watched(listener::onException, ((ExceptionUpdate) update).exception);
+            } else if (update instanceof TracedUpdate) {
+                TracedUpdate traced = (TracedUpdate) update;
+                TraceContext previous = TraceContext.enter(traced.context);
+                try {
+                    watched(listener::onValue, (T) traced.value);
+                } finally {
+                    TraceContext.exit(previous);
+                }
+            } else {
+                watched(listener::onValue, (T) update);
+            }
+        }
+
+        private void discardPending(RejectedExecutionException rejection) {
+            if (firstUpdateDelivered != null) {
+                dispatchToUncaughtExceptionHandler(new UpdateDeliveryException(firstUpdate, rejection));
+                firstUpdate = null;
+                firstUpdateDelivered.countDown();
+                firstUpdateDelivered = null;
+            }
+            int missed = 1;
+            while (true) {
+                Object update;
+                while ((update = poll()) != null) {
+                    Object value = update instanceof ExceptionUpdate ? ((ExceptionUpdate) update).exception
+                            : TracedUpdate.valueOf(update);
+                    dispatchToUncaughtExceptionHandler(new UpdateDeliveryException(value, rejection));
+                }
+                missed = WORK_IN_PROGRESS.addAndGet(this, -missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public long droppedUpdates() {
+            return dropped;
+        }
+
+        @Override
+        public int pendingUpdates() {
+            if (conflate) {
+                return updates.size() + (latest != null ? 1 : 0);
+            }
+            return countQueued ? queued : updates.size();
+        }
+
+        @Override
+        public boolean isQuarantined() {
+            return quarantine != null;
+        }
+
+        private void cancel() {
+            cancelled = true;
+            if (blockedProducers != null) {
+                wakeBlockedProducers();
+            }
         }
 
         @Override
         public void unsubscribe() {
-            observable.removeListener(listener);
+            observable.removeListener(this);
             listener.onUnsubscribe(this);
         }
     }
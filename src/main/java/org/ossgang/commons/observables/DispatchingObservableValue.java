@@ -23,16 +23,11 @@
 package org.ossgang.commons.observables;
 
 import static java.util.Objects.requireNonNull;
-import static org.ossgang.commons.observables.SubscriptionOptions.FIRST_UPDATE;
-import static org.ossgang.commons.observables.SubscriptionOptions.ON_CHANGE;
-import static org.ossgang.commons.utils.Uncheckeds.uncheckedConsumer;
 
-import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collection;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.BinaryOperator;
 
 /**
@@ -45,26 +40,67 @@ import java.util.function.BinaryOperator;
  * @param <T> the type of the observable
  */
 public class DispatchingObservableValue<T> extends DispatchingObservable<T> implements ObservableValue<T> {
-    private final AtomicReference<T> lastValue;
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DispatchingObservableValue, Object> LAST_VALUE = //
+            AtomicReferenceFieldUpdater.newUpdater(DispatchingObservableValue.class, Object.class, "lastValue");
+
+    private volatile T lastValue;
 
     protected DispatchingObservableValue(T initial) {
-        lastValue = new AtomicReference<>(initial);
+        this(initial, null);
+    }
+
+    /**
+     * @param initial          the initial value, or null for an uninitialized observable value
+     * @param dispatchExecutor the executor to deliver updates on, or null to use the global default
+     */
+    protected DispatchingObservableValue(T initial, Executor dispatchExecutor) {
+        super(dispatchExecutor);
+        lastValue = initial;
     }
 
     @Override
-    public Subscription subscribe(Observer<? super T> observer, SubscriptionOption... options) {
-        Set<SubscriptionOption> optionSet = new HashSet<>(Arrays.asList(options));
-        Subscription subscription = super.subscribe(observer, options);
-        if (optionSet.contains(FIRST_UPDATE)) {
-            Optional.ofNullable(lastValue.get())
-                    .ifPresent(uncheckedConsumer(value -> dispatch(observer::onValue, value).get()));
-        }
-        return subscription;
+    T firstUpdateValue() {
+        return lastValue;
     }
 
+    /**
+     * Replace the current value and dispatch the new one. Unlike {@link #accumulate(Object, BinaryOperator)}, this
+     * does not allocate any intermediate objects: the value is swapped in a single atomic operation.
+     *
+     * @param newValue the new value, must not be null
+     */
     @Override
     protected void dispatchValue(T newValue) {
-        accumulate(newValue, (old, update) -> update);
+        requireNonNull(newValue, "updated value must not be null.");
+        @SuppressWarnings("unchecked")
+        T oldValue = (T) LAST_VALUE.getAndSet(this, newValue);
+        dispatch(oldValue, newValue);
+    }
+
+    /**
+     * Apply several updates in order, as if each of them had been dispatched with {@link #dispatchValue(Object)}, but
+     * atomically and handing all of them to each subscriber at once. Subscribers with
+     * {@link SubscriptionOptions#ON_CHANGE} only receive the values which differ from their predecessor.
+     *
+     * @param values the values to dispatch, none of them may be null
+     */
+    @Override
+    protected void dispatchValues(Collection<? extends T> values) {
+        Object[] batch = values.toArray();
+        if (batch.length == 0) {
+            return;
+        }
+        for (Object value : batch) {
+            requireNonNull(value, "updated value must not be null.");
+        }
+        Object previous = LAST_VALUE.getAndSet(this, batch[batch.length - 1]);
+        boolean[] changed = new boolean[batch.length];
+        changed[0] = !Objects.equals(previous, batch[0]);
+        for (int i = 1; i < batch.length; i++) {
+            changed[i] = !Objects.equals(batch[i - 1], batch[i]);
+        }
+        dispatchBatch(batch, changed);
     }
 
     /**
@@ -77,28 +113,36 @@ public class DispatchingObservableValue<T> extends DispatchingObservable<T> impl
      * @return a transition object, containing both, the original value and the updated (new) value
      */
     protected Transition<T> accumulate(T x, BinaryOperator<T> accumulatorFunction) {
-        AtomicReference<T> newValue = new AtomicReference<>();
-        T oldValue = lastValue.getAndAccumulate(x, (old, update) -> {
-            T v = accumulatorFunction.apply(old, update);
-            requireNonNull(v, "updated value must not be null.");
-            newValue.set(v);
-            return v;
-        });
-        Transition<T> transition = Transition.fromTo(oldValue, newValue.get());
-        dispatch(transition);
-        return transition;
+        T oldValue;
+        T newValue;
+        do {
+            oldValue = lastValue;
+            newValue = requireNonNull(accumulatorFunction.apply(oldValue, x), "updated value must not be null.");
+        } while (!LAST_VALUE.compareAndSet(this, oldValue, newValue));
+        dispatch(oldValue, newValue);
+        return Transition.fromTo(oldValue, newValue);
     }
 
-    private void dispatch(Transition<T> transition) {
-        if (Objects.equals(transition.oldValue(), transition.newValue())) {
-            super.dispatchValue(transition.newValue(), s -> !s.contains(ON_CHANGE));
+    private void dispatch(T oldValue, T newValue) {
+        if (Objects.equals(oldValue, newValue)) {
+            super.dispatchUnchangedValue(newValue);
         } else {
-            super.dispatchValue(transition.newValue());
+            super.dispatchValue(newValue);
         }
     }
 
+    /**
+     * Replace the current value without notifying the subscribers, e.g. to initialize the value of an observable which
+     * is (re-)connected to its sources.
+     *
+     * @param newValue the new value, must not be null
+     */
+    protected void updateWithoutDispatching(T newValue) {
+        lastValue = requireNonNull(newValue, "updated value must not be null.");
+    }
+
     @Override
     public T get() {
-        return lastValue.get();
+        return lastValue;
     }
 }
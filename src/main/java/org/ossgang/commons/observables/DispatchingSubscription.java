@@ -0,0 +1,24 @@
+package org.ossgang.commons.observables;
+
+/**
+ * A {@link Subscription} returned by observables based on {@link DispatchingObservable}, providing statistics about the
+ * delivery of updates to its observer.
+ */
+public interface DispatchingSubscription extends Subscription {
+
+    /**
+     * @return the number of updates which have been discarded for this subscription, e.g. because of a full backlog
+     */
+    long droppedUpdates();
+
+    /**
+     * @return the number of updates waiting to be delivered to the observer
+     */
+    int pendingUpdates();
+
+    /**
+     * @return true if the observer was moved to the quarantine executor because it was too slow (see
+     *         {@link Observables#setSlowObserverQuarantine(java.util.concurrent.Executor)})
+     */
+    boolean isQuarantined();
+}
@@ -1,16 +1,28 @@
 package org.ossgang.commons.observables;
 
+import org.ossgang.commons.observables.jfr.ObservableEvents;
+
 import java.util.Objects;
 import java.util.function.Consumer;
 
-final class ExceptionHandlers {
+/**
+ * Passes the exceptions nobody can handle to the global uncaught exception handler (see
+ * {@link Observables#setUncaughtExceptionHandler(Consumer)}). Public only for the operators and schedulers of the other
+ * packages of the library; not meant to be used by clients.
+ */
+public final class ExceptionHandlers {
     private static volatile Consumer<Exception> uncaughtExceptionHandler = ExceptionHandlers::printExceptionToStderr;
 
     private ExceptionHandlers() {
         throw new UnsupportedOperationException("static only");
     }
 
-    static void dispatchToUncaughtExceptionHandler(Exception exception) {
+    /**
+     * @param exception the exception to report to the global uncaught exception handler
+     */
+    public static void dispatchToUncaughtExceptionHandler(Exception exception) {
+        ObservableEvents.uncaughtException(exception);
+        DispatchInstrumentations.uncaughtException(exception);
         try {
             uncaughtExceptionHandler.accept(exception);
         } catch (Exception e) {
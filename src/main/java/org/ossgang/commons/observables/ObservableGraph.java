@@ -0,0 +1,174 @@
+package org.ossgang.commons.observables;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.ossgang.commons.observables.metrics.DispatchMetrics;
+import org.ossgang.commons.observables.metrics.ObservableMetrics;
+
+/**
+ * A snapshot of the graph of observables connected to a given observable, e.g. to find out which upstreams a slow
+ * operator depends on, which operators are computed redundantly, or why a subgraph is still alive.
+ * <p>
+ * The graph is walked in both directions: upstream through the sources of operators and connectors (see
+ * {@link UpstreamAware}), and downstream through the operators subscribed to an observable. For each observable, the
+ * number of subscribers is recorded, as well as the number of updates and the update rate if a {@link DispatchMetrics}
+ * is installed (see {@link Observables#setDispatchInstrumentation(DispatchInstrumentation)}). The graph can be dumped
+ * as text or in the DOT format of Graphviz.
+ */
+public final class ObservableGraph {
+    private final List<Observable<?>> observables;
+    private final Map<Observable<?>, String> ids;
+    private final Map<Observable<?>, Map<?, Observable<?>>> upstreams;
+
+    private ObservableGraph(List<Observable<?>> observables, Map<Observable<?>, String> ids,
+                            Map<Observable<?>, Map<?, Observable<?>>> upstreams) {
+        this.observables = observables;
+        this.ids = ids;
+        this.upstreams = upstreams;
+    }
+
+    /**
+     * @param observable the observable to start from
+     * @return the graph of all observables directly or indirectly connected to the given one
+     */
+    public static ObservableGraph of(Observable<?> observable) {
+        List<Observable<?>> observables = new ArrayList<>();
+        Map<Observable<?>, String> ids = new IdentityHashMap<>();
+        Map<Observable<?>, Map<?, Observable<?>>> upstreams = new IdentityHashMap<>();
+        Deque<Observable<?>> pending = new ArrayDeque<>();
+        pending.add(observable);
+        while (!pending.isEmpty()) {
+            Observable<?> next = pending.poll();
+            if (ids.containsKey(next)) {
+                continue;
+            }
+            ids.put(next, "n" + observables.size());
+            observables.add(next);
+            Map<?, Observable<?>> nextUpstreams = upstreamsOf(next);
+            upstreams.put(next, nextUpstreams);
+            pending.addAll(nextUpstreams.values());
+            pending.addAll(downstreamsOf(next));
+        }
+        return new ObservableGraph(observables, ids, upstreams);
+    }
+
+    private static Map<?, Observable<?>> upstreamsOf(Observable<?> observable) {
+        return observable instanceof UpstreamAware ? ((UpstreamAware) observable).upstreams() : Collections.emptyMap();
+    }
+
+    private static List<Observable<?>> downstreamsOf(Observable<?> observable) {
+        List<Observable<?>> downstreams = new ArrayList<>();
+        if (observable instanceof DispatchingObservable) {
+            for (Observer<?> observer : ((DispatchingObservable<?>) observable).observers()) {
+                if (observer instanceof WeakMethodReferenceObserver) {
+                    Object holder = ((WeakMethodReferenceObserver<?, ?>) observer).get();
+                    if (holder instanceof Observable) {
+                        downstreams.add((Observable<?>) holder);
+                    }
+                }
+            }
+        }
+        return downstreams;
+    }
+
+    /**
+     * @return the observables of the graph, starting with the one the graph was created from
+     */
+    public List<Observable<?>> observables() {
+        return Collections.unmodifiableList(observables);
+    }
+
+    /**
+     * @param observable an observable of the graph
+     * @return the upstream observables of the given one, by their key
+     */
+    public Map<?, Observable<?>> upstreams(Observable<?> observable) {
+        return upstreams.getOrDefault(observable, Collections.emptyMap());
+    }
+
+    /**
+     * @return the graph as text, one observable per line followed by its upstreams
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        for (Observable<?> observable : observables) {
+            text.append(ids.get(observable)).append(' ').append(typeOf(observable)).append(" [")
+                    .append(String.join(", ", statisticsOf(observable))).append("]\n");
+            upstreams.get(observable).forEach((key, upstream) -> {
+                text.append("    <- ").append(ids.get(upstream));
+                if (hasLabel(key)) {
+                    text.append(" (").append(key).append(')');
+                }
+                text.append('\n');
+            });
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return the graph in the DOT format of Graphviz, the edges pointing downstream
+     */
+    public String toDot() {
+        StringBuilder dot = new StringBuilder("digraph observables {\n");
+        for (Observable<?> observable : observables) {
+            dot.append("    ").append(ids.get(observable)).append(" [label=\"")
+                    .append(escape(typeOf(observable)));
+            for (String statistic : statisticsOf(observable)) {
+                dot.append("\\n").append(escape(statistic));
+            }
+            dot.append("\"];\n");
+        }
+        for (Observable<?> observable : observables) {
+            upstreams.get(observable).forEach((key, upstream) -> {
+                dot.append("    ").append(ids.get(upstream)).append(" -> ").append(ids.get(observable));
+                if (hasLabel(key)) {
+                    dot.append(" [label=\"").append(escape(String.valueOf(key))).append("\"]");
+                }
+                dot.append(";\n");
+            });
+        }
+        return dot.append("}\n").toString();
+    }
+
+    private static List<String> statisticsOf(Observable<?> observable) {
+        List<String> statistics = new ArrayList<>();
+        if (observable instanceof DispatchingObservable) {
+            statistics.add("subscribers=" + ((DispatchingObservable<?>) observable).subscriberCount());
+        }
+        DispatchInstrumentation instrumentation = DispatchInstrumentations.instrumentation();
+        if (instrumentation instanceof DispatchMetrics) {
+            ObservableMetrics metrics = ((DispatchMetrics) instrumentation).perObservable().get(observable);
+            if (metrics != null) {
+                statistics.add("updates=" + metrics.dispatchedUpdates());
+                statistics.add(String.format(Locale.ROOT, "%.1f updates/s", metrics.updatesPerSecond()));
+            }
+        }
+        return statistics;
+    }
+
+    private static String typeOf(Observable<?> observable) {
+        String simpleName = observable.getClass().getSimpleName();
+        return simpleName.isEmpty() ? observable.getClass().getName() : simpleName;
+    }
+
+    /* keys which are just plain objects (e.g. of single source operators) carry no information */
+    private static boolean hasLabel(Object key) {
+        return key != null && key.getClass() != Object.class;
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    @Override
+    public String toString() {
+        return toText();
+    }
+}
@@ -22,6 +22,7 @@ package org.ossgang.commons.observables;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -71,6 +72,47 @@ public final class Observables {
         return new SimpleDispatcher<>(null);
     }
 
+    /**
+     * Create an {@link Dispatcher} with the specified initial value, which delivers its updates on the given
+     * {@link Executor} instead of the global default one.
+     *
+     * @param initial          the initial value of the {@link Dispatcher}, may be null
+     * @param dispatchExecutor the executor to deliver updates on
+     * @param <T>              the type of the observable
+     * @return an {@link Dispatcher} with the specified initial value
+     * @see DispatchExecutors
+     */
+    public static <T> Dispatcher<T> dispatcher(T initial, Executor dispatchExecutor) {
+        return new SimpleDispatcher<>(initial, Objects.requireNonNull(dispatchExecutor, "executor must not be null"));
+    }
+
+    /**
+     * Create a {@link RingBufferDispatcher}, for high update rates. It must be closed when it is no longer needed.
+     *
+     * @param initial      the initial value of the {@link Dispatcher}, may be null
+     * @param capacity     the number of slots of the ring buffer, must be a power of two
+     * @param waitStrategy how publishers and the consumer thread wait for each other
+     * @param <T>          the type of the observable
+     * @return a {@link RingBufferDispatcher} with the specified initial value
+     */
+    public static <T> RingBufferDispatcher<T> ringBufferDispatcher(T initial, int capacity,
+                                                                   RingBufferDispatcher.WaitStrategy waitStrategy) {
+        return new RingBufferDispatcher<>(initial, capacity, waitStrategy);
+    }
+
+    /**
+     * Create a {@link RingBufferDispatcher}, for high update rates. It must be closed when it is no longer needed.
+     *
+     * @param capacity     the number of slots of the ring buffer, must be a power of two
+     * @param waitStrategy how publishers and the consumer thread wait for each other
+     * @param <T>          the type of the observable
+     * @return a {@link RingBufferDispatcher}
+     */
+    public static <T> RingBufferDispatcher<T> ringBufferDispatcher(int capacity,
+                                                                   RingBufferDispatcher.WaitStrategy waitStrategy) {
+        return new RingBufferDispatcher<>(null, capacity, waitStrategy);
+    }
+
     /**
      * Creates a {@link ConnectorObservableValue} that on each connection (call to {@link ConnectorObservableValue#connect()})
      * will subscribe to the upstream {@link ObservableValue} produced by the specified {@link Supplier}.
@@ -150,6 +192,24 @@ public final class Observables {
         return Operators.observableValueOf(observable);
     }
 
+    /**
+     * Create a derived observable value applying a mapping function to each value of the source, lazily: unlike
+     * {@link ObservableValue#map(Function)}, it only subscribes upstream while it has subscribers (plus the linger time,
+     * see {@link #setUpstreamLinger(Duration)}), and computes its value on demand otherwise. This avoids any work for
+     * mapped values nobody observes, but the mapping function must be free of side effects, and its exceptions are not
+     * reported to the uncaught exception handler while nobody observes the value (unless the value is requested).
+     * Chains of lazy mappings are fused into a single step.
+     *
+     * @param source the observable value to map
+     * @param mapper the mapping function, free of side effects
+     * @param <I>    the type of the source
+     * @param <O>    the type of the mapped value
+     * @return the lazily mapped observable value
+     */
+    public static <I, O> ObservableValue<O> lazyMap(ObservableValue<I> source, Function<I, O> mapper) {
+        return DerivedObservableValue.lazyMap(source, mapper);
+    }
+
     /**
      * Produces an {@link ObservableValue} that zips the values of the provided {@link ObservableValue}. The {@link Map}
      * parameter provides the indexes of the {@link Map} that will be passed to the specified mapper {@link Function}.
@@ -736,7 +796,82 @@ public final class Observables {
      * @return the debounced ObservableValue
      */
     public static <T> ObservableValue<T> debounce(Observable<T> source, Duration debouncePeriod) {
-        return new DebouncedObservableValue<>(source, debouncePeriod);
+        return debounce(source, debouncePeriod, new DebounceOption[0]);
+    }
+
+    /**
+     * Creates an {@link ObservableValue} that only dispatch those items dispatched by the source {@link ObservableValue}
+     * that are not followed by another item within the specified time window.
+     * NOTE: if the source {@link ObservableValue} always dispatch items with a shorter rate then the time window, then
+     * this debounced {@link ObservableValue} will never dispatch, unless {@link DebounceOptions#maxWait(Duration)} is
+     * given. {@link DebounceOptions#leading()} and {@link DebounceOptions#trailing()} select whether the first and/or
+     * the last item of a burst of updates is dispatched.
+     *
+     * @param source         Observable
+     * @param debouncePeriod the time window for debouncing the dispatching of the values
+     * @param options        the debounce options, see {@link DebounceOptions}
+     * @param <T>            the value type
+     * @return the debounced ObservableValue
+     */
+    public static <T> ObservableValue<T> debounce(Observable<T> source, Duration debouncePeriod,
+                                                  DebounceOption... options) {
+        return new DebouncedObservableValue<>(source, debouncePeriod, options);
+    }
+
+    /**
+     * Creates an {@link ObservableValue} that dispatches the first item of the source {@link Observable}, and then
+     * ignores its items until the given time window elapsed. The next item after the window is dispatched and opens a
+     * new window.
+     *
+     * @param source the observable to throttle
+     * @param window the minimum time between two dispatched items
+     * @param <T>    the value type
+     * @return the throttled ObservableValue
+     */
+    public static <T> ObservableValue<T> throttleFirst(Observable<T> source, Duration window) {
+        return ThrottledObservableValue.throttleFirst(source, window);
+    }
+
+    /**
+     * Creates an {@link ObservableValue} that dispatches at most one item of the source {@link Observable} per time
+     * window: an item opens a window, and the latest item received within the window is dispatched when it ends. This
+     * allows to feed a fast source to a slow consumer at a bounded rate, always delivering the most recent value.
+     *
+     * @param source the observable to throttle
+     * @param window the time window
+     * @param <T>    the value type
+     * @return the throttled ObservableValue
+     * @see #sample(Observable, Duration)
+     */
+    public static <T> ObservableValue<T> throttleLast(Observable<T> source, Duration window) {
+        return ThrottledObservableValue.throttleLast(source, window);
+    }
+
+    /**
+     * Creates an {@link ObservableValue} that dispatches the latest item of the source {@link Observable} once per
+     * period, if the source emitted within the period. This is equivalent to
+     * {@link #throttleLast(Observable, Duration)}.
+     *
+     * @param source the observable to sample
+     * @param period the sampling period
+     * @param <T>    the value type
+     * @return the sampled ObservableValue
+     */
+    public static <T> ObservableValue<T> sample(Observable<T> source, Duration period) {
+        return ThrottledObservableValue.throttleLast(source, period);
+    }
+
+    /**
+     * Creates an {@link ObservableValue} that dispatches the latest item of the source {@link Observable} whenever the
+     * trigger {@link Observable} emits, if the source emitted since the previous trigger.
+     *
+     * @param source  the observable to sample
+     * @param trigger the observable triggering the sampling, its items are ignored
+     * @param <T>     the value type
+     * @return the sampled ObservableValue
+     */
+    public static <T> ObservableValue<T> sample(Observable<T> source, Observable<?> trigger) {
+        return new SampledObservableValue<>(source, trigger);
     }
 
     /**
@@ -759,15 +894,103 @@ public final class Observables {
     }
 
     /**
-     * Creates an observable value that emits the actual time every given period.
+     * Sets the static, framework-wide default {@link Executor} which is used to deliver updates to observers, for all
+     * observables and subscriptions that do not specify their own. Initially, this is
+     * {@link DispatchExecutors#defaultPool()}. The change applies to all subsequent updates, including the ones of
+     * already existing observables.
+     *
+     * @param executor the executor to deliver updates on
+     * @see DispatchExecutors
+     */
+    public static void setDefaultDispatchExecutor(Executor executor) {
+        DispatchExecutors.setDefaultExecutor(executor);
+    }
+
+    /**
+     * Sets the static, framework-wide number of subscribers from which on an observable fans out the submission of its
+     * delivery tasks: the subscribers are split into one lane per processor, and the publishing thread submits at most
+     * one task per lane to the executor, instead of one per subscriber (see {@link DispatchingObservable}). The
+     * publishing thread still enqueues each update for every subscriber, so the cost of publishing still grows with the
+     * number of subscribers; only the executor submissions move to the lanes. Initially, this is 512. The threshold is
+     * checked when subscribers are added; once an observable fans out, it keeps doing so for its whole lifetime.
+     *
+     * @param subscribers the minimum number of subscribers to fan out in parallel
+     */
+    public static void setFanOutThreshold(int subscribers) {
+        DispatchExecutors.setFanOutThreshold(subscribers);
+    }
+
+    /**
+     * Sets the static, framework-wide time an {@link Observer} may take to process a single update. Observers exceeding
+     * it are reported to the uncaught exception handler with a
+     * {@link org.ossgang.commons.observables.exceptions.SlowObserverException}, and moved to the quarantine executor if
+     * one is set (see {@link #setSlowObserverQuarantine(Executor)}). A budget of zero, the initial setting, disables the
+     * watchdog.
+     *
+     * @param budget the maximum processing time of an update, or zero to disable the watchdog
+     */
+    public static void setSlowObserverBudget(Duration budget) {
+        DispatchExecutors.setSlowObserverBudget(budget);
+    }
+
+    /**
+     * Sets the static, framework-wide executor to move observers to, if they exceed the slow observer budget (see
+     * {@link #setSlowObserverBudget(Duration)}). From then on, all updates for such an observer are delivered on this
+     * executor (still in order), so that it can no longer occupy the threads serving the other observers. Initially,
+     * there is no quarantine executor and slow observers are only reported.
+     *
+     * @param quarantine the executor for slow observers, or null to only report them
+     */
+    public static void setSlowObserverQuarantine(Executor quarantine) {
+        DispatchExecutors.setSlowObserverQuarantine(quarantine);
+    }
+
+    /**
+     * Sets the static, framework-wide {@link DispatchInstrumentation}, which is notified about the subscriptions,
+     * updates, deliveries and dropped updates of all observables, e.g. a
+     * {@link org.ossgang.commons.observables.metrics.DispatchMetrics}. Initially, this is
+     * {@link DispatchInstrumentation#NOOP}.
+     *
+     * @param instrumentation the instrumentation to notify
+     */
+    public static void setDispatchInstrumentation(DispatchInstrumentation instrumentation) {
+        DispatchInstrumentations.setInstrumentation(instrumentation);
+    }
+
+    /**
+     * Sets the static, framework-wide time lazy mappings (see {@link #lazyMap(ObservableValue, Function)}) stay
+     * subscribed upstream after their last subscriber left. Initially, this is zero, i.e. they unsubscribe upstream
+     * right away; a linger time avoids re-subscribing when observers come and go in quick succession.
+     *
+     * @param linger the time to stay subscribed upstream without subscribers
+     */
+    public static void setUpstreamLinger(Duration linger) {
+        AbstractOperatorObservableValue.setUpstreamLinger(linger);
+    }
+
+    /**
+     * Enables or disables, framework-wide, the tagging of dispatched updates with a {@link TraceContext}, which allows
+     * an observer to find out how long ago the source event of an update happened, through any chain of operators.
+     * Initially, tracing is disabled.
+     *
+     * @param enabled true to enable tracing
+     */
+    public static void setTracing(boolean enabled) {
+        TraceContext.setEnabled(enabled);
+    }
+
+    /**
+     * Creates an observable value that emits the actual time every given period. The timer only runs while the
+     * observable value has subscribers, and callers asking for the same period share the same observable value.
      *
      * @param period the period in the given unit, when to emit
      * @param unit   the unit for the period
      * @return a periodically emitting obersvable value
      * @throws NullPointerException if the unit is {@code null}
+     * @throws IllegalArgumentException if the period is not positive
      */
     public static ObservableValue<Instant> periodicEvery(long period, TimeUnit unit) {
-        return new PeriodicObservableValue(period, unit);
+        return PeriodicObservableValue.every(period, unit);
     }
 
 }
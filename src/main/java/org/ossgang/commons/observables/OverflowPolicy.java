@@ -0,0 +1,34 @@
+package org.ossgang.commons.observables;
+
+/**
+ * What to do with an update which is dispatched to a subscription whose backlog is full. See
+ * {@link DispatchOptions#backlog(int, OverflowPolicy)}.
+ */
+public enum OverflowPolicy {
+    /**
+     * Discard the oldest pending value to make room for the new update. Pending exceptions are never discarded.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Discard the new update, keeping the pending ones.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Block the publishing thread until there is room in the backlog. An observer publishing to its own (full)
+     * subscription is never blocked, to avoid a deadlock.
+     * <p>
+     * This only prevents an observer from blocking on itself: observers which publish to other observables, whose
+     * subscriptions are blocking as well, can still deadlock if they end up waiting for each other (e.g. two observers
+     * with full backlogs publishing to each other's observable). Such cycles must be avoided, or another policy used.
+     */
+    BLOCK_PRODUCER,
+
+    /**
+     * Discard the new update, and deliver a
+     * {@link org.ossgang.commons.observables.exceptions.BacklogOverflowException} to the observer. The exception is
+     * delivered only once per overflow, after the pending updates.
+     */
+    FAIL
+}
@@ -1,24 +1,107 @@
 package org.ossgang.commons.observables;
 
+import java.lang.ref.WeakReference;
 import java.time.Instant;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
-import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.ossgang.commons.utils.NamedDaemonThreadFactory.daemonThreadFactoryWithPrefix;
 
 /**
  * Creates an observable value that emits periodically at the given rate. The value emitted is the current time (as
  * instant). Emitting is done on a single thread.
+ * <p>
+ * The periodic task only runs while the observable has subscribers: it is started when the first observer subscribes,
+ * and stopped when the last one unsubscribes. Instances are shared by period (see {@link #every(long, TimeUnit)}), so
+ * that all the observers of a given period are served by a single task. While the task is not running, the value is the
+ * current time.
  */
 public class PeriodicObservableValue extends DispatchingObservableValue<Instant> {
 
-    private static final ScheduledExecutorService SCHEDULED_EXECUTOR_SERVICE = newScheduledThreadPool(1,
+    private static final ScheduledThreadPoolExecutor SCHEDULED_EXECUTOR_SERVICE = new ScheduledThreadPoolExecutor(1,
             daemonThreadFactoryWithPrefix("ossgang-commons-PeriodicObservable-"));
+    private static final Map<Long, WeakReference<PeriodicObservableValue>> SHARED = new HashMap<>();
+
+    static {
+        SCHEDULED_EXECUTOR_SERVICE.setRemoveOnCancelPolicy(true);
+    }
+
+    private final long periodNanos;
+    private final Object lock = new Object();
+    private int subscriptionCount = 0; /* guarded by lock */
+    private volatile ScheduledFuture<?> task; /* written under lock */
 
     PeriodicObservableValue(long period, TimeUnit unit) {
         super(Instant.now());
-        SCHEDULED_EXECUTOR_SERVICE.scheduleAtFixedRate(() -> dispatchValue(Instant.now()), 0, period, unit);
+        Objects.requireNonNull(unit, "The unit must not be null");
+        if (period <= 0) {
+            throw new IllegalArgumentException("The period must be positive, but was " + period + " " + unit);
+        }
+        this.periodNanos = unit.toNanos(period);
+    }
+
+    /**
+     * @param period the period in the given unit
+     * @param unit the unit for the period
+     * @return the periodic observable value for this period, shared with all other callers while it is reachable
+     */
+    static PeriodicObservableValue every(long period, TimeUnit unit) {
+        Objects.requireNonNull(unit, "The unit must not be null");
+        long periodNanos = unit.toNanos(period);
+        synchronized (SHARED) {
+            SHARED.values().removeIf(reference -> reference.get() == null);
+            WeakReference<PeriodicObservableValue> reference = SHARED.get(periodNanos);
+            PeriodicObservableValue shared = reference == null ? null : reference.get();
+            if (shared == null) {
+                shared = new PeriodicObservableValue(periodNanos, TimeUnit.NANOSECONDS);
+                SHARED.put(periodNanos, new WeakReference<>(shared));
+            }
+            return shared;
+        }
+    }
+
+    /**
+     * @return true if the periodic task is currently running, i.e. if there are subscribers
+     */
+    public boolean isRunning() {
+        return task != null;
+    }
+
+    @Override
+    public Instant get() {
+        return isRunning() ? super.get() : Instant.now();
+    }
+
+    @Override
+    Instant firstUpdateValue() {
+        return isRunning() ? super.firstUpdateValue() : Instant.now();
+    }
+
+    @Override
+    protected void subscriptionAdded(Observer<? super Instant> listener, Set<SubscriptionOption> options) {
+        synchronized (lock) {
+            if (subscriptionCount++ == 0) {
+                /* the value is fresh for the first update of the subscriber, the task dispatches one period later */
+                updateWithoutDispatching(Instant.now());
+                task = SCHEDULED_EXECUTOR_SERVICE.scheduleAtFixedRate(() -> dispatchValue(Instant.now()), periodNanos,
+                        periodNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    @Override
+    protected void subscriptionRemoved(Observer<? super Instant> listener) {
+        synchronized (lock) {
+            if (--subscriptionCount == 0) {
+                task.cancel(false);
+                task = null;
+            }
+        }
     }
 
 }
@@ -0,0 +1,213 @@
+package org.ossgang.commons.observables;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link Dispatcher} for high update rates, decoupling the publishers from the observers through a pre-allocated ring
+ * buffer, in the style of a disruptor.
+ * <p>
+ * Publishers claim a sequence number, write the update into the corresponding slot and mark it as published. If the
+ * ring is full, publishers wait (according to the {@link WaitStrategy}) until the consumer made room. A single,
+ * dedicated consumer thread takes the updates from the ring in sequence order, updates the value returned by
+ * {@link #get()} and delivers them to the observers. Observers are called directly on the consumer thread (unless they
+ * subscribed with their own executor, see {@link DispatchOptions#executor(java.util.concurrent.Executor)}), so they
+ * see all updates in order, without any per-update task submission or allocation.
+ * <p>
+ * The consumer thread keeps this dispatcher alive, it must be {@link #close() closed} when it is no longer needed.
+ * Closing the dispatcher atomically marks the sequence counter, so that a sequence is either claimed before closing,
+ * and delivered by the consumer before it stops, or rejected.
+ *
+ * @param <T> the type of the dispatcher
+ */
+public class RingBufferDispatcher<T> extends DispatchingObservableValue<T> implements Dispatcher<T>, AutoCloseable {
+
+    /**
+     * How publishers wait for a free slot, and the consumer waits for the next update.
+     */
+    public enum WaitStrategy {
+        /**
+         * Spin in a tight loop. Lowest latency, but burns a CPU core per waiting thread.
+         */
+        BUSY_SPIN {
+            @Override
+            void idle() {
+                /* spin */
+            }
+        },
+
+        /**
+         * Yield the CPU to other threads between checks. Low latency, still using a lot of CPU when idle.
+         */
+        YIELD {
+            @Override
+            void idle() {
+                Thread.yield();
+            }
+        },
+
+        /**
+         * Park the thread for a short time between checks. Uses little CPU when idle, at the cost of some latency.
+         */
+        PARK {
+            @Override
+            void idle() {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        };
+
+        private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+        abstract void idle();
+    }
+
+    private static final AtomicLong CONSUMER_INDEX = new AtomicLong(0);
+    /* added to the claimed sequence on close, so that later claims fail */
+    private static final long CLOSED = 1L << 62;
+
+    private final Object[] entries;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final AtomicLong claimed = new AtomicLong(0);
+    private final AtomicLong consumed = new AtomicLong(0);
+    private final Thread consumer;
+    /* the sequence the consumer stops at, i.e. the number of updates claimed before closing; -1 while not closed */
+    private volatile long closedAt = -1;
+
+    RingBufferDispatcher(T initial, int capacity, WaitStrategy waitStrategy) {
+        super(initial, DispatchExecutors.synchronous());
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("The capacity must be a power of two, but was " + capacity);
+        }
+        this.waitStrategy = requireNonNull(waitStrategy, "The wait strategy must not be null");
+        this.entries = new Object[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.mask = capacity - 1;
+        this.consumer = new Thread(this::consume,
+                "ossgang-commons-RingBufferDispatcher-consumer-" + CONSUMER_INDEX.getAndIncrement());
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public void dispatchValue(T value) {
+        requireNonNull(value, "updated value must not be null.");
+        TraceContext context = TraceContext.forDispatch();
+        publish(context != null ? new TracedEntry(value, context) : value);
+    }
+
+    @Override
+    public void dispatchValues(Collection<? extends T> values) {
+        for (T value : values) {
+            dispatchValue(value);
+        }
+    }
+
+    @Override
+    public void dispatchException(Throwable exception) {
+        publish(new ExceptionEntry(requireNonNull(exception, "exception must not be null.")));
+    }
+
+    /**
+     * Stop the consumer thread, after the updates already published are delivered. Updates dispatched after closing
+     * are rejected with an {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence >= CLOSED) {
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + CLOSED));
+        closedAt = sequence;
+    }
+
+    /**
+     * @return the number of updates published, but not yet taken by the consumer
+     */
+    public long pendingUpdates() {
+        long sequence = claimed.get();
+        if (sequence >= CLOSED) {
+            sequence = closedAt;
+        }
+        return Math.max(0, sequence - consumed.get());
+    }
+
+    private void publish(Object entry) {
+        long sequence = claimed.getAndIncrement();
+        if (sequence >= CLOSED) {
+            throw new IllegalStateException("The dispatcher is closed");
+        }
+        while (sequence - consumed.get() >= entries.length) {
+            if (!consumer.isAlive()) {
+                throw new IllegalStateException("The consumer thread of the dispatcher terminated, the update of"
+                        + " sequence " + sequence + " can not be delivered");
+            }
+            waitStrategy.idle();
+        }
+        int index = (int) sequence & mask;
+        entries[index] = entry;
+        published.lazySet(index, sequence);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void consume() {
+        long next = 0;
+        while (true) {
+            int index = (int) next & mask;
+            if (published.get(index) != next) {
+                /* no sequence can be claimed after closing, all the claimed ones are published eventually */
+                if (closedAt == next) {
+                    return;
+                }
+                waitStrategy.idle();
+                continue;
+            }
+            Object entry = entries[index];
+            entries[index] = null;
+            consumed.lazySet(++next);
+            if (entry instanceof ExceptionEntry) {
+                super.dispatchException(((ExceptionEntry) entry).exception);
+            } else if (entry instanceof TracedEntry) {
+                TraceContext previous = TraceContext.enter(((TracedEntry) entry).context);
+                try {
+                    super.dispatchValue((T) ((TracedEntry) entry).value);
+                } finally {
+                    TraceContext.exit(previous);
+                }
+            } else {
+                super.dispatchValue((T) entry);
+            }
+        }
+    }
+
+    /* a value published with tracing enabled, dispatched by the consumer in the trace context of the publisher */
+    private static final class TracedEntry {
+        private final Object value;
+        private final TraceContext context;
+
+        private TracedEntry(Object value, TraceContext context) {
+            this.value = value;
+            this.context = context;
+        }
+    }
+
+    private static final class ExceptionEntry {
+        private final Throwable exception;
+
+        private ExceptionEntry(Throwable exception) {
+            this.exception = exception;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package org.ossgang.commons.observables;
 
+import java.util.Collection;
+import java.util.concurrent.Executor;
+
 /**
  * Simple implementation of {@link Dispatcher}.
  *
@@ -11,6 +14,10 @@ public class SimpleDispatcher<T> extends DispatchingObservableValue<T> implement
         super(initial);
     }
 
+    SimpleDispatcher(T initial, Executor dispatchExecutor) {
+        super(initial, dispatchExecutor);
+    }
+
     @Override
     public void dispatchException(Throwable exception) {
         super.dispatchException(exception);
@@ -20,4 +27,9 @@ public class SimpleDispatcher<T> extends DispatchingObservableValue<T> implement
     public void dispatchValue(T value) {
         super.dispatchValue(value);
     }
+
+    @Override
+    public void dispatchValues(Collection<? extends T> values) {
+        super.dispatchValues(values);
+    }
 }
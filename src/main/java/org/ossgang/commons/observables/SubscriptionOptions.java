@@ -9,13 +9,30 @@ package org.ossgang.commons.observables;
 public enum SubscriptionOptions implements SubscriptionOption {
     /**
      * On subscription, deliver the actual value (it it exists) as a "first update".
-     * This does not happen on the subscribing thread, but it is guaranteed that it is delivered before any other updates,
-     * and before subscribe() returns.
+     * This does not happen on the subscribing thread (unless the updates are delivered {@link #SYNCHRONOUS}ly), but it is
+     * guaranteed that it is delivered before any other updates, and before subscribe() returns.
      */
     FIRST_UPDATE,
 
     /**
      * Only notify the subscriber on updates which actually changed the value of this ObservableValue.
      */
-    ON_CHANGE
+    ON_CHANGE,
+
+    /**
+     * Only deliver the latest update to the subscriber: at most one update is pending for this subscriber, and a newer
+     * update replaces a pending one (which is counted as dropped, see {@link DispatchingSubscription}). This is useful
+     * for slow subscribers of an ObservableValue, which are only interested in its current state.
+     */
+    CONFLATE,
+
+    /**
+     * Deliver the updates directly on the publishing thread, instead of handing them over to an executor. Updates
+     * published by the subscriber itself (or by another thread) while an update is being delivered are queued and
+     * delivered in order after it returns, so the subscriber is never re-entered. Exceptions thrown by the subscriber
+     * are passed to the uncaught exception handler, they never propagate to the publisher.
+     *
+     * @see DispatchExecutors#synchronous()
+     */
+    SYNCHRONOUS
 }
@@ -0,0 +1,101 @@
+package org.ossgang.commons.observables;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Identifies the source event an update originates from, to measure the latency from the source to any observer
+ * further down a chain of operators.
+ * <p>
+ * If tracing is enabled (see {@link Observables#setTracing(boolean)}), each value dispatched by an observable based on
+ * {@link DispatchingObservable} is tagged with a trace context when it is queued, and the context is made available to
+ * the observer while it processes the value (see {@link #current()}). A value dispatched while processing a traced
+ * value (which is what operators like map, filter, combineLatest or connectors do) inherits the context, so that the
+ * context travels along the whole chain. Otherwise, a new context is started, with a new sequence id and the current
+ * time as origin.
+ * <p>
+ * Values which are dispatched later from another thread (e.g. by debounce) start a new trace. Exceptions are not
+ * traced.
+ */
+public final class TraceContext {
+    private static final AtomicLong SEQUENCE = new AtomicLong(0);
+    private static final ThreadLocal<TraceContext> CURRENT = new ThreadLocal<>();
+    private static volatile boolean enabled = false;
+
+    private final long sequenceId;
+    private final long originNanos;
+
+    private TraceContext(long sequenceId, long originNanos) {
+        this.sequenceId = sequenceId;
+        this.originNanos = originNanos;
+    }
+
+    /**
+     * @return the trace context of the update the current thread is processing, or empty if it is not processing a
+     *         traced update
+     */
+    public static Optional<TraceContext> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * @return the unique, increasing id of the source event
+     */
+    public long sequenceId() {
+        return sequenceId;
+    }
+
+    /**
+     * @return the time of the source event, as given by {@link System#nanoTime()}
+     */
+    public long originNanos() {
+        return originNanos;
+    }
+
+    /**
+     * @return the time elapsed since the source event
+     */
+    public Duration age() {
+        return Duration.ofNanos(System.nanoTime() - originNanos);
+    }
+
+    static void setEnabled(boolean isEnabled) {
+        enabled = isEnabled;
+    }
+
+    /**
+     * @return the context to tag a dispatched update with: the current one or a new one, or null if tracing is disabled
+     */
+    static TraceContext forDispatch() {
+        if (!enabled) {
+            return null;
+        }
+        TraceContext current = CURRENT.get();
+        return current != null ? current : new TraceContext(SEQUENCE.incrementAndGet(), System.nanoTime());
+    }
+
+    /**
+     * Make the given context the current one of this thread.
+     *
+     * @return the previous context, to be restored with {@link #exit(TraceContext)}
+     */
+    static TraceContext enter(TraceContext context) {
+        TraceContext previous = CURRENT.get();
+        CURRENT.set(context);
+        return previous;
+    }
+
+    static void exit(TraceContext previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TraceContext [sequenceId=" + sequenceId + ", age=" + age() + "]";
+    }
+}
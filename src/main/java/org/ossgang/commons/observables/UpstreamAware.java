@@ -0,0 +1,16 @@
+package org.ossgang.commons.observables;
+
+import java.util.Map;
+
+/**
+ * An {@link Observable} which derives its updates from other (upstream) observables, e.g. an operator like map or
+ * combineLatest, or a connector. This allows to walk a graph of observables, see {@link ObservableGraph}.
+ */
+public interface UpstreamAware {
+
+    /**
+     * @return a snapshot of the observables this one currently gets its updates from, by the key identifying them in
+     *         this observable (e.g. the keys of the source map of combineLatest)
+     */
+    Map<?, Observable<?>> upstreams();
+}
@@ -0,0 +1,20 @@
+package org.ossgang.commons.observables.exceptions;
+
+import org.ossgang.commons.observables.OverflowPolicy;
+
+/**
+ * An exception delivered to an observer subscribed with the {@link OverflowPolicy#FAIL} policy, if updates had to be
+ * discarded because its backlog was full.
+ */
+public class BacklogOverflowException extends RuntimeException {
+    private final int capacity;
+
+    public BacklogOverflowException(int capacity) {
+        super("Backlog overflow: more than " + capacity + " updates pending, updates were discarded");
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,43 @@
+package org.ossgang.commons.observables.exceptions;
+
+import java.time.Duration;
+
+import org.ossgang.commons.observables.Observer;
+
+/**
+ * An exception reported to the uncaught exception handler if an {@link Observer} took longer than the configured budget
+ * to process an update (see {@link org.ossgang.commons.observables.Observables#setSlowObserverBudget(Duration)}). It
+ * provides access to the slow observer, the time it took and whether it was moved to the quarantine executor.
+ */
+public class SlowObserverException extends RuntimeException {
+    private final transient Observer<?> observer;
+    private final Duration duration;
+    private final Duration budget;
+    private final boolean quarantined;
+
+    public SlowObserverException(Observer<?> observer, Duration duration, Duration budget, boolean quarantined) {
+        super("Slow observer: processing an update took " + duration.toMillis() + "ms, the budget is "
+                + budget.toMillis() + "ms" + (quarantined ? ", moved to quarantine" : "") + "\n -> observer: "
+                + observer);
+        this.observer = observer;
+        this.duration = duration;
+        this.budget = budget;
+        this.quarantined = quarantined;
+    }
+
+    public Observer<?> getObserver() {
+        return observer;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getBudget() {
+        return budget;
+    }
+
+    public boolean isQuarantined() {
+        return quarantined;
+    }
+}
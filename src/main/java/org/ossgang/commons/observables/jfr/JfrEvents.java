@@ -0,0 +1,178 @@
+package org.ossgang.commons.observables.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import org.ossgang.commons.observables.Observable;
+
+/**
+ * The actual Flight Recorder events. This class (and the event classes) reference the jdk.jfr API, and are only loaded
+ * by {@link ObservableEvents} if it is present.
+ */
+final class JfrEvents {
+    private JfrEvents() {
+        throw new UnsupportedOperationException("static only");
+    }
+
+    static void install() {
+        try {
+            FlightRecorder.addListener(new FlightRecorderListener() {
+                @Override
+                public void recorderInitialized(FlightRecorder recorder) {
+                    updateRecording();
+                }
+
+                @Override
+                public void recordingStateChanged(Recording changed) {
+                    updateRecording();
+                }
+            });
+        } catch (SecurityException | IllegalStateException e) {
+            /* no access to the recorder, events stay disabled */
+        }
+    }
+
+    private static void updateRecording() {
+        ObservableEvents.setRecording(FlightRecorder.isInitialized() && FlightRecorder.getFlightRecorder()
+                .getRecordings().stream().anyMatch(recording -> recording.getState() == RecordingState.RUNNING));
+    }
+
+    static void dispatched(Observable<?> observable, int updates) {
+        DispatchEvent event = new DispatchEvent();
+        if (event.shouldCommit()) {
+            event.observableType = typeOf(observable);
+            event.updates = updates;
+            event.commit();
+        }
+    }
+
+    static Object beginDelivery() {
+        DeliveryEvent event = new DeliveryEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void delivered(Object started, Observable<?> observable, Object observer) {
+        DeliveryEvent event = (DeliveryEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.observableType = typeOf(observable);
+            event.observerType = typeOf(observer);
+            event.commit();
+        }
+    }
+
+    static Object beginOperation() {
+        OperatorEvent event = new OperatorEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void applied(Object started, Observable<?> operator) {
+        OperatorEvent event = (OperatorEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.operatorType = typeOf(operator);
+            event.commit();
+        }
+    }
+
+    static void debounceScheduled(Observable<?> observable, long delayMillis) {
+        DebounceEvent event = new DebounceEvent();
+        if (event.shouldCommit()) {
+            event.observableType = typeOf(observable);
+            event.delay = delayMillis;
+            event.commit();
+        }
+    }
+
+    static void uncaughtException(Exception exception) {
+        UncaughtExceptionEvent event = new UncaughtExceptionEvent();
+        if (event.shouldCommit()) {
+            event.exceptionType = typeOf(exception);
+            event.message = exception.getMessage();
+            event.commit();
+        }
+    }
+
+    private static String typeOf(Object object) {
+        return object == null ? null : object.getClass().getName();
+    }
+
+    @Name("org.ossgang.commons.observables.Dispatch")
+    @Label("Observable Dispatch")
+    @Category({ "ossgang-commons", "Observables" })
+    @Description("Updates published by an observable to its subscribers")
+    @StackTrace(false)
+    static final class DispatchEvent extends Event {
+        @Label("Observable Type")
+        String observableType;
+
+        @Label("Updates")
+        int updates;
+    }
+
+    @Name("org.ossgang.commons.observables.Delivery")
+    @Label("Observer Delivery")
+    @Category({ "ossgang-commons", "Observables" })
+    @Description("An observer processing an update (or a batch of updates)")
+    @StackTrace(false)
+    static final class DeliveryEvent extends Event {
+        @Label("Observable Type")
+        String observableType;
+
+        @Label("Observer Type")
+        String observerType;
+    }
+
+    @Name("org.ossgang.commons.observables.Operator")
+    @Label("Operator Evaluation")
+    @Category({ "ossgang-commons", "Observables" })
+    @Description("A derived observable (e.g. map or filter) evaluating its function on an upstream update")
+    @StackTrace(false)
+    static final class OperatorEvent extends Event {
+        @Label("Operator Type")
+        String operatorType;
+    }
+
+    @Name("org.ossgang.commons.observables.DebounceScheduled")
+    @Label("Debounce Scheduled")
+    @Category({ "ossgang-commons", "Observables" })
+    @Description("A debounced observable scheduling the dispatch of the latest value")
+    @StackTrace(false)
+    static final class DebounceEvent extends Event {
+        @Label("Observable Type")
+        String observableType;
+
+        @Label("Delay")
+        @Timespan(Timespan.MILLISECONDS)
+        long delay;
+    }
+
+    @Name("org.ossgang.commons.observables.UncaughtException")
+    @Label("Uncaught Exception")
+    @Category({ "ossgang-commons", "Observables" })
+    @Description("An exception passed to the uncaught exception handler of the observables")
+    static final class UncaughtExceptionEvent extends Event {
+        @Label("Exception Type")
+        String exceptionType;
+
+        @Label("Message")
+        String message;
+    }
+}
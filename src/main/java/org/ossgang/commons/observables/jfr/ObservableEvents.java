@@ -0,0 +1,122 @@
+package org.ossgang.commons.observables.jfr;
+
+import org.ossgang.commons.observables.Observable;
+
+/**
+ * Static support class emitting Java Flight Recorder events for the dispatching of updates, the delivery to observers,
+ * the evaluation of operators, the scheduling of debounced values and uncaught exceptions. This allows to correlate the
+ * latencies of the observables with e.g. GC pauses and lock contention in a flight recording.
+ * <p>
+ * The events are only created while a recording is running. On a JVM without Flight Recorder (e.g. a Java 8 runtime
+ * without the backport), the JFR classes are never loaded and all methods return right away. The events are in the
+ * "ossgang-commons / Observables" category and can be enabled or disabled individually in the recording settings.
+ */
+public final class ObservableEvents {
+    private static final boolean AVAILABLE = isFlightRecorderPresent();
+    private static volatile boolean recording;
+
+    static {
+        if (AVAILABLE) {
+            JfrEvents.install();
+        }
+    }
+
+    private ObservableEvents() {
+        throw new UnsupportedOperationException("static only");
+    }
+
+    /**
+     * @return true if the JVM supports Java Flight Recorder
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * @return true if a flight recording is currently running, i.e. if the events are emitted
+     */
+    public static boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * @param observable the observable which published updates
+     * @param updates    the number of updates published
+     */
+    public static void dispatched(Observable<?> observable, int updates) {
+        if (recording) {
+            JfrEvents.dispatched(observable, updates);
+        }
+    }
+
+    /**
+     * Start timing the delivery of an update to an observer.
+     *
+     * @return the event to pass to {@link #delivered(Object, Observable, Object)}, or null if not recording
+     */
+    public static Object beginDelivery() {
+        return recording ? JfrEvents.beginDelivery() : null;
+    }
+
+    /**
+     * @param event      the event returned by {@link #beginDelivery()}
+     * @param observable the observable the update came from
+     * @param observer   the observer which processed the update
+     */
+    public static void delivered(Object event, Observable<?> observable, Object observer) {
+        if (event != null) {
+            JfrEvents.delivered(event, observable, observer);
+        }
+    }
+
+    /**
+     * Start timing the evaluation of an operator on an upstream update.
+     *
+     * @return the event to pass to {@link #applied(Object, Observable)}, or null if not recording
+     */
+    public static Object beginOperation() {
+        return recording ? JfrEvents.beginOperation() : null;
+    }
+
+    /**
+     * @param event    the event returned by {@link #beginOperation()}
+     * @param operator the operator which was evaluated
+     */
+    public static void applied(Object event, Observable<?> operator) {
+        if (event != null) {
+            JfrEvents.applied(event, operator);
+        }
+    }
+
+    /**
+     * @param observable  the debounced observable
+     * @param delayMillis the time after which the value is dispatched, unless a newer one arrives
+     */
+    public static void debounceScheduled(Observable<?> observable, long delayMillis) {
+        if (recording) {
+            JfrEvents.debounceScheduled(observable, delayMillis);
+        }
+    }
+
+    /**
+     * @param exception the exception passed to the uncaught exception handler
+     */
+    public static void uncaughtException(Exception exception) {
+        if (recording) {
+            JfrEvents.uncaughtException(exception);
+        }
+    }
+
+    static void setRecording(boolean isRecording) {
+        recording = isRecording;
+    }
+
+    private static boolean isFlightRecorderPresent() {
+        try {
+            Class.forName("jdk.jfr.FlightRecorderListener", false, ObservableEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
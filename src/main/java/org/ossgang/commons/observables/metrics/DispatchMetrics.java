@@ -0,0 +1,125 @@
+package org.ossgang.commons.observables.metrics;
+
+import static java.util.Collections.unmodifiableMap;
+import static java.util.stream.Collectors.toList;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.ossgang.commons.observables.DispatchInstrumentation;
+import org.ossgang.commons.observables.Observable;
+import org.ossgang.commons.observables.Observables;
+
+/**
+ * A {@link DispatchInstrumentation} collecting counters and latency histograms, in total and per observable, based on
+ * striped counters ({@link LongAdder}) so that recording does not contend between threads. Install it with
+ * {@link Observables#setDispatchInstrumentation(DispatchInstrumentation)} and read it periodically, e.g. from a
+ * monitoring system.
+ * <p>
+ * The metrics of an observable are kept while it has subscribers, and discarded when its last subscriber unsubscribes,
+ * so that they do not prevent the observable from being garbage collected. Updates published while an observable has
+ * no subscribers are only counted in the total.
+ */
+public class DispatchMetrics implements DispatchInstrumentation {
+    private final ObservableMetrics total = new ObservableMetrics();
+    private final Map<Observable<?>, ObservableMetrics> observables = new ConcurrentHashMap<>();
+    private final LongAdder uncaughtExceptions = new LongAdder();
+
+    /**
+     * @return the metrics of all observables together. The subscriber count is the number of observables with
+     *         subscribers.
+     */
+    public ObservableMetrics total() {
+        return total;
+    }
+
+    /**
+     * @return a live, unmodifiable view of the metrics of the observables which currently have subscribers
+     */
+    public Map<Observable<?>, ObservableMetrics> perObservable() {
+        return unmodifiableMap(observables);
+    }
+
+    /**
+     * @param limit the maximum number of observables to return
+     * @return the observables which published the most updates, in decreasing order
+     */
+    public List<Map.Entry<Observable<?>, ObservableMetrics>> hottest(int limit) {
+        return observables.entrySet().stream() //
+                .sorted(Comparator.comparingLong(
+                        (Map.Entry<Observable<?>, ObservableMetrics> entry) -> entry.getValue().dispatchedUpdates())
+                        .reversed()) //
+                .limit(limit) //
+                .collect(toList());
+    }
+
+    /**
+     * @return the number of exceptions passed to the uncaught exception handler
+     */
+    public long uncaughtExceptions() {
+        return uncaughtExceptions.sum();
+    }
+
+    @Override
+    public void subscribed(Observable<?> observable, int subscribers) {
+        observables.computeIfAbsent(observable, o -> new ObservableMetrics()).setSubscribers(subscribers);
+        total.setSubscribers(observables.size());
+    }
+
+    @Override
+    public void unsubscribed(Observable<?> observable, int subscribers) {
+        if (subscribers == 0) {
+            observables.remove(observable);
+        } else {
+            observables.computeIfPresent(observable, (o, metrics) -> {
+                metrics.setSubscribers(subscribers);
+                return metrics;
+            });
+        }
+        total.setSubscribers(observables.size());
+    }
+
+    @Override
+    public void dispatched(Observable<?> observable, int updates) {
+        total.recordDispatch(updates);
+        ObservableMetrics metrics = observables.get(observable);
+        if (metrics != null) {
+            metrics.recordDispatch(updates);
+        }
+    }
+
+    @Override
+    public void deliveryStarted(Observable<?> observable, long queueWaitNanos) {
+        total.recordQueueWait(queueWaitNanos);
+        ObservableMetrics metrics = observables.get(observable);
+        if (metrics != null) {
+            metrics.recordQueueWait(queueWaitNanos);
+        }
+    }
+
+    @Override
+    public void delivered(Observable<?> observable, long executionNanos) {
+        total.recordDelivery(executionNanos);
+        ObservableMetrics metrics = observables.get(observable);
+        if (metrics != null) {
+            metrics.recordDelivery(executionNanos);
+        }
+    }
+
+    @Override
+    public void dropped(Observable<?> observable) {
+        total.recordDrop();
+        ObservableMetrics metrics = observables.get(observable);
+        if (metrics != null) {
+            metrics.recordDrop();
+        }
+    }
+
+    @Override
+    public void uncaughtException(Exception exception) {
+        uncaughtExceptions.increment();
+    }
+}
@@ -0,0 +1,89 @@
+package org.ossgang.commons.observables.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations, with one bucket per power of two nanoseconds. Recording is a single striped
+ * counter increment, so it can be used on hot paths by many threads at once; the percentiles are approximated by the
+ * upper bound of the bucket they fall into (i.e. they are at most a factor two too high).
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = Long.SIZE;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param nanos the duration to record, in nanoseconds. Negative values are recorded as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets[value == 0 ? 0 : BUCKETS - 1 - Long.numberOfLeadingZeros(value)].increment();
+        totalNanos.add(value);
+    }
+
+    /**
+     * @return the number of recorded durations
+     */
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return the mean of the recorded durations, or zero if there are none
+     */
+    public Duration mean() {
+        long count = count();
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos.sum() / count);
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @return the approximate duration below which the given percentage of the recorded durations fall, or zero if
+     *         there are none
+     */
+    public Duration percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("The percentile must be between 0 and 100, but was " + percentile);
+        }
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        if (count == 0) {
+            return Duration.ZERO;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Duration.ofNanos(upperBound(i));
+            }
+        }
+        return Duration.ofNanos(upperBound(BUCKETS - 1));
+    }
+
+    private static long upperBound(int bucket) {
+        return bucket >= BUCKETS - 2 ? Long.MAX_VALUE : (2L << bucket) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram [count=" + count() + ", mean=" + mean() + ", p50=" + percentile(50) + ", p99="
+                + percentile(99) + "]";
+    }
+}
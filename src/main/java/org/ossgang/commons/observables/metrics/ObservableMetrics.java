@@ -0,0 +1,96 @@
+package org.ossgang.commons.observables.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics collected by {@link DispatchMetrics} for one observable (or for all of them together). All counters are
+ * cumulative since the metrics were created; rates (e.g. updates per second) are obtained by sampling them
+ * periodically.
+ */
+public class ObservableMetrics {
+    private final LongAdder dispatchedUpdates = new LongAdder();
+    private final LongAdder deliveries = new LongAdder();
+    private final LongAdder droppedUpdates = new LongAdder();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram execution = new LatencyHistogram();
+    private final long createdNanos = System.nanoTime();
+    private volatile int subscribers;
+
+    /**
+     * @return the number of updates (values and exceptions) published by the observable
+     */
+    public long dispatchedUpdates() {
+        return dispatchedUpdates.sum();
+    }
+
+    /**
+     * @return the average number of updates published per second, since the metrics were created
+     */
+    public double updatesPerSecond() {
+        long elapsedNanos = System.nanoTime() - createdNanos;
+        return elapsedNanos <= 0 ? 0 : dispatchedUpdates() * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return the number of updates (or batches of updates) processed by the observers
+     */
+    public long deliveries() {
+        return deliveries.sum();
+    }
+
+    /**
+     * @return the number of updates discarded for one of the subscribers, e.g. because of a full backlog
+     */
+    public long droppedUpdates() {
+        return droppedUpdates.sum();
+    }
+
+    /**
+     * @return the times the delivery tasks waited for a thread of their executor
+     */
+    public LatencyHistogram queueWait() {
+        return queueWait;
+    }
+
+    /**
+     * @return the times the observers took to process the updates
+     */
+    public LatencyHistogram execution() {
+        return execution;
+    }
+
+    /**
+     * @return the current number of subscribers
+     */
+    public int subscribers() {
+        return subscribers;
+    }
+
+    void recordDispatch(int updates) {
+        dispatchedUpdates.add(updates);
+    }
+
+    void recordDelivery(long executionNanos) {
+        deliveries.increment();
+        execution.record(executionNanos);
+    }
+
+    void recordQueueWait(long queueWaitNanos) {
+        queueWait.record(queueWaitNanos);
+    }
+
+    void recordDrop() {
+        droppedUpdates.increment();
+    }
+
+    void setSubscribers(int subscribers) {
+        this.subscribers = subscribers;
+    }
+
+    @Override
+    public String toString() {
+        return "ObservableMetrics [subscribers=" + subscribers + ", dispatchedUpdates=" + dispatchedUpdates()
+                + ", deliveries=" + deliveries() + ", droppedUpdates=" + droppedUpdates() + ", queueWait=" + queueWait
+                + ", execution=" + execution + "]";
+    }
+}
@@ -1,11 +1,23 @@
 package org.ossgang.commons.observables.operators;
 
+import static java.util.Collections.unmodifiableMap;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.ossgang.commons.observables.SubscriptionOptions.FIRST_UPDATE;
+import static org.ossgang.commons.utils.NamedDaemonThreadFactory.daemonThreadFactoryWithPrefix;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 
@@ -15,6 +27,7 @@ import org.ossgang.commons.observables.ObservableValue;
 import org.ossgang.commons.observables.Observer;
 import org.ossgang.commons.observables.Subscription;
 import org.ossgang.commons.observables.SubscriptionOption;
+import org.ossgang.commons.observables.UpstreamAware;
 import org.ossgang.commons.observables.WeakMethodReferenceObserver;
 
 /**
@@ -22,8 +35,14 @@ import org.ossgang.commons.observables.WeakMethodReferenceObserver;
  * applying an operation. Operations can be arbitrary but must be side-effect free, e.g. mapping or filtering.
  * If an operation fails (e.g. a mapping function throws), the exception is propagated downstream.
  * <p>
- * The subscription to the upstream observable is eager (as soon as this class is instantiated), even if there are no
- * subscribers. Subscription upstream are "possibly weak". If there are no observers downstream, the upstream observer
+ * The subscription to the upstream observable is either eager (as soon as this class is instantiated, see
+ * {@link #subscribeUpstreamWithFirstUpdate(Map)}), even if there are no subscribers, or lazy (see
+ * {@link #subscribeUpstreamLazily(Map)}): in the latter case, the upstream observables are only subscribed while this
+ * {@link ObservableValue} has subscribers (plus an optional linger time, see {@link #setUpstreamLinger(Duration)}), so
+ * that no work is done for values nobody observes. While not subscribed upstream, {@link #get()} computes the value on
+ * demand (see {@link #computeOnDemand()}).
+ * <p>
+ * Eager subscriptions upstream are "possibly weak". If there are no observers downstream, the upstream observer
  * reference "this" {@link ObservableValue} weakly. As soon as a downstream observer subscribes, the upstream observer
  * reference to "this" {@link ObservableValue} becomes strong. When all downstream observers unsubscribe, the upstream
  * observer reference to "this" {@link ObservableValue} becomes weak again, allowing "this" to be garbage collected.
@@ -35,27 +54,182 @@ import org.ossgang.commons.observables.WeakMethodReferenceObserver;
  * @param <O> the type of this observable
  */
 public abstract class AbstractOperatorObservableValue<K, I, O> extends DispatchingObservableValue<O>
-        implements ObservableValue<O> {
+        implements ObservableValue<O>, UpstreamAware {
+
+    private static final ScheduledExecutorService LINGER_EXECUTOR_SERVICE = newScheduledThreadPool(1,
+            daemonThreadFactoryWithPrefix("ossgang-commons-AbstractOperatorObservableValue-linger-"));
+    private static volatile long upstreamLingerNanos = 0;
+    /* the operator whose initial value the current thread is computing while (re-)subscribing upstream, if any */
+    private static final ThreadLocal<AbstractOperatorObservableValue<?, ?, ?>> APPLYING_FIRST_UPDATE =
+            new ThreadLocal<>();
 
-    @SuppressWarnings("MismatchedQueryAndUpdateOfCollection")
-    private final List<Subscription> sourceSubscriptions; /* just used to hold strong references upstream */
+    private final List<Subscription> sourceSubscriptions;
     private final List<PossiblyWeakObserver<AbstractOperatorObservableValue<K, I, O>, I>> sourceObservers;
+    private final Map<K, Observable<I>> upstreams;
     private int subscriptionCount = 0;
+    /* the sources to subscribe while there are subscribers, null for eager operators; guarded by sourceObservers */
+    private Map<K, ? extends Observable<I>> lazySources;
+    /* incremented on each (re-)subscription, to cancel pending disconnects; guarded by sourceObservers */
+    private long disconnectGeneration = 0;
+    private volatile boolean connected = false;
+    /* the number of threads applying a first update silently, to skip the thread local lookup if there are none */
+    private final AtomicInteger applyingFirstUpdates = new AtomicInteger(0);
 
     protected AbstractOperatorObservableValue() {
-        super(null);
+        this(null);
+    }
+
+    /**
+     * @param dispatchExecutor the executor to deliver updates on, or null to use the global default
+     */
+    protected AbstractOperatorObservableValue(Executor dispatchExecutor) {
+        super(null, dispatchExecutor);
         this.sourceObservers = new ArrayList<>();
         this.sourceSubscriptions = new ArrayList<>();
+        this.upstreams = new LinkedHashMap<>();
+    }
+
+    /**
+     * Sets the static, framework-wide time lazy operators stay subscribed upstream after their last subscriber left, to
+     * avoid re-subscribing (and re-computing the initial value) if a new subscriber arrives shortly after. Initially,
+     * this is zero, i.e. lazy operators unsubscribe upstream right away.
+     *
+     * @param linger the time to stay subscribed upstream without subscribers
+     */
+    public static void setUpstreamLinger(Duration linger) {
+        Objects.requireNonNull(linger, "The upstream linger time must not be null");
+        if (linger.isNegative()) {
+            throw new IllegalArgumentException("The upstream linger time must not be negative, but was " + linger);
+        }
+        upstreamLingerNanos = linger.toNanos();
     }
 
+    /**
+     * Subscribe to the given sources now, and stay subscribed for the whole lifetime of this observable.
+     *
+     * @param sourceObservables the sources, by the key passed to {@link #applyOperation(Object, Object)}
+     */
     protected void subscribeUpstreamWithFirstUpdate(Map<K, ? extends Observable<I>> sourceObservables) {
-        sourceObservables.forEach((key, source) -> {
-            PossiblyWeakObserver<AbstractOperatorObservableValue<K, I, O>, I> observer = new PossiblyWeakObserver<>(
-                    this, (self, item) -> self.applyOperation(key, item),
-                    (self, exception) -> self.dispatchException(exception));
-            this.sourceObservers.add(observer);
-            this.sourceSubscriptions.add(source.subscribe(observer, FIRST_UPDATE));
+        synchronized (upstreams) {
+            this.upstreams.putAll(sourceObservables);
+        }
+        synchronized (sourceObservers) {
+            sourceObservables.forEach((key, source) -> subscribeUpstream(key, source,
+                    (self, item) -> self.applyOperation(key, item), FIRST_UPDATE));
+            connected = true;
+        }
+    }
+
+    /**
+     * Subscribe to the given sources now, and stay subscribed for the whole lifetime of this observable, without
+     * receiving their current value: only the updates following the subscription are passed to
+     * {@link #applyOperation(Object, Object)}.
+     *
+     * @param sourceObservables the sources, by the key passed to {@link #applyOperation(Object, Object)}
+     */
+    protected void subscribeUpstreamWithoutFirstUpdate(Map<K, ? extends Observable<I>> sourceObservables) {
+        synchronized (upstreams) {
+            this.upstreams.putAll(sourceObservables);
+        }
+        synchronized (sourceObservers) {
+            sourceObservables.forEach((key, source) -> subscribeUpstream(key, source,
+                    (self, item) -> self.applyOperation(key, item)));
+            connected = true;
+        }
+    }
+
+    /**
+     * Subscribe to the given sources only while this observable has subscribers. Only suitable for operations which do
+     * not depend on previous values, as updates of the sources are missed while not subscribed.
+     *
+     * @param sourceObservables the sources, by the key passed to {@link #applyOperation(Object, Object)}
+     */
+    protected void subscribeUpstreamLazily(Map<K, ? extends Observable<I>> sourceObservables) {
+        synchronized (upstreams) {
+            this.upstreams.putAll(sourceObservables);
+        }
+        synchronized (sourceObservers) {
+            lazySources = new LinkedHashMap<>(sourceObservables);
+            if (subscriptionCount > 0) {
+                connect();
+            }
+        }
+    }
+
+    private void subscribeUpstream(K key, Observable<I> source,
+                                   BiConsumer<AbstractOperatorObservableValue<K, I, O>, I> valueConsumer,
+                                   SubscriptionOption... options) {
+        PossiblyWeakObserver<AbstractOperatorObservableValue<K, I, O>, I> observer = new PossiblyWeakObserver<>(this,
+                valueConsumer, (self, exception) -> self.dispatchException(exception));
+        if (subscriptionCount > 0) {
+            observer.makeStrong();
+        }
+        this.sourceObservers.add(observer);
+        this.sourceSubscriptions.add(source.subscribe(observer, options));
+    }
+
+    /**
+     * Subscribe to the lazy sources, with their first update. The first value a source delivers while it is subscribed
+     * to is its current value (or a more recent one): it only updates the value of this operator silently, like for an
+     * eager operator, new subscribers only get it if they asked for the first update. The values following it are
+     * dispatched as usual, even if they are delivered before the subscription returned.
+     */
+    private void connect() {
+        lazySources.forEach((key, source) -> {
+            AtomicBoolean firstUpdatePending = new AtomicBoolean(true);
+            subscribeUpstream(key, source, (self, item) -> {
+                if (firstUpdatePending.compareAndSet(true, false)) {
+                    self.applyFirstUpdate(key, item);
+                } else {
+                    self.applyOperation(key, item);
+                }
+            }, FIRST_UPDATE);
+            firstUpdatePending.set(false);
         });
+        connected = true;
+    }
+
+    private void applyFirstUpdate(K key, I item) {
+        AbstractOperatorObservableValue<?, ?, ?> previous = APPLYING_FIRST_UPDATE.get();
+        APPLYING_FIRST_UPDATE.set(this);
+        applyingFirstUpdates.incrementAndGet();
+        try {
+            applyOperation(key, item);
+        } finally {
+            applyingFirstUpdates.decrementAndGet();
+            if (previous != null) {
+                APPLYING_FIRST_UPDATE.set(previous);
+            } else {
+                APPLYING_FIRST_UPDATE.remove();
+            }
+        }
+    }
+
+    private boolean isApplyingFirstUpdate() {
+        return applyingFirstUpdates.get() != 0 && APPLYING_FIRST_UPDATE.get() == this;
+    }
+
+    private void disconnect() {
+        connected = false;
+        sourceSubscriptions.forEach(Subscription::unsubscribe);
+        sourceSubscriptions.clear();
+        sourceObservers.clear();
+    }
+
+    private void disconnectAfterLinger() {
+        long lingerNanos = upstreamLingerNanos;
+        if (lingerNanos == 0) {
+            disconnect();
+            return;
+        }
+        long generation = disconnectGeneration;
+        LINGER_EXECUTOR_SERVICE.schedule(() -> {
+            synchronized (sourceObservers) {
+                if (generation == disconnectGeneration && subscriptionCount == 0 && connected) {
+                    disconnect();
+                }
+            }
+        }, lingerNanos, TimeUnit.NANOSECONDS);
     }
 
     @Override
@@ -63,6 +237,12 @@ public abstract class AbstractOperatorObservableValue<K, I, O> extends Dispatchi
         synchronized (sourceObservers) {
             if (subscriptionCount++ == 0) {
                 sourceObservers.forEach(PossiblyWeakObserver::makeStrong);
+                if (lazySources != null) {
+                    disconnectGeneration++;
+                    if (!connected) {
+                        connect();
+                    }
+                }
             }
         }
     }
@@ -72,8 +252,61 @@ public abstract class AbstractOperatorObservableValue<K, I, O> extends Dispatchi
         synchronized (sourceObservers) {
             if (--subscriptionCount == 0) {
                 sourceObservers.forEach(PossiblyWeakObserver::makeWeak);
+                if (lazySources != null) {
+                    disconnectAfterLinger();
+                }
+            }
+        }
+    }
+
+    /**
+     * The value computed from the first update of a lazy source is not dispatched (see {@link #connect()}).
+     */
+    @Override
+    protected void dispatchValue(O newValue) {
+        if (isApplyingFirstUpdate()) {
+            updateWithoutDispatching(newValue);
+        } else {
+            super.dispatchValue(newValue);
+        }
+    }
+
+    @Override
+    protected void dispatchException(Throwable exception) {
+        if (!isApplyingFirstUpdate()) {
+            super.dispatchException(exception);
+        }
+    }
+
+    /**
+     * @return the current value; computed on demand if this is a lazy operator which is currently not subscribed
+     *         upstream, falling back to the last known value if it cannot be computed
+     */
+    @Override
+    public O get() {
+        if (!connected) {
+            Optional<O> computed = computeOnDemand();
+            if (computed.isPresent()) {
+                return computed.get();
             }
         }
+        return super.get();
+    }
+
+    /**
+     * Compute the value from the current values of the sources, for {@link #get()} while not subscribed upstream.
+     *
+     * @return the value, or empty if it cannot be computed (the default)
+     */
+    protected Optional<O> computeOnDemand() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Map<K, Observable<?>> upstreams() {
+        synchronized (upstreams) {
+            return unmodifiableMap(new LinkedHashMap<>(upstreams));
+        }
     }
 
     /**
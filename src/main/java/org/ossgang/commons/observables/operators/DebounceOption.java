@@ -0,0 +1,8 @@
+package org.ossgang.commons.observables.operators;
+
+/**
+ * An option controlling when a debounced observable dispatches, see {@link DebounceOptions}.
+ */
+public interface DebounceOption {
+    String name();
+}
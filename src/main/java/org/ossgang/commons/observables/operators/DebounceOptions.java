@@ -0,0 +1,80 @@
+package org.ossgang.commons.observables.operators;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The {@link DebounceOption}s supported by {@link DebouncedObservableValue}. A burst is a sequence of updates which are
+ * less than the debounce period apart. Without options, only the last item of a burst is dispatched, once the source
+ * was quiet for the whole debounce period ({@link #trailing()}).
+ */
+public final class DebounceOptions {
+    private static final DebounceOption LEADING = () -> "LEADING";
+    private static final DebounceOption TRAILING = () -> "TRAILING";
+
+    private DebounceOptions() {
+        throw new UnsupportedOperationException("static only");
+    }
+
+    /**
+     * Dispatch the first item of a burst right away. Unless {@link #trailing()} is given as well, the following items
+     * of the burst are not dispatched.
+     *
+     * @return the debounce option
+     */
+    public static DebounceOption leading() {
+        return LEADING;
+    }
+
+    /**
+     * Dispatch the last item of a burst once the source was quiet for the debounce period. This is the default if no
+     * edge is given, it only needs to be specified together with {@link #leading()}. The last item is not dispatched
+     * again if it was already dispatched on the leading edge.
+     *
+     * @return the debounce option
+     */
+    public static DebounceOption trailing() {
+        return TRAILING;
+    }
+
+    /**
+     * Dispatch the latest item at least once per given time during a burst, so that a source which never goes quiet
+     * still yields updates at a bounded rate.
+     *
+     * @param maxWait the maximum time an item waits to be dispatched, measured from the start of the burst or the
+     *            previous dispatch, must be positive
+     * @return the debounce option
+     */
+    public static DebounceOption maxWait(Duration maxWait) {
+        return new MaxWaitOption(maxWait);
+    }
+
+    static boolean isLeading(DebounceOption option) {
+        return option == LEADING;
+    }
+
+    static boolean isTrailing(DebounceOption option) {
+        return option == TRAILING;
+    }
+
+    static final class MaxWaitOption implements DebounceOption {
+        private final Duration maxWait;
+
+        private MaxWaitOption(Duration maxWait) {
+            Objects.requireNonNull(maxWait, "The maximum wait time must not be null");
+            if (maxWait.isZero() || maxWait.isNegative()) {
+                throw new IllegalArgumentException("The maximum wait time must be positive, but was " + maxWait);
+            }
+            this.maxWait = maxWait;
+        }
+
+        Duration maxWait() {
+            return maxWait;
+        }
+
+        @Override
+        public String name() {
+            return "MAX_WAIT";
+        }
+    }
+}
@@ -20,45 +20,136 @@ package org.ossgang.commons.observables.operators;
 
 import org.ossgang.commons.observables.Observable;
 import org.ossgang.commons.observables.ObservableValue;
+import org.ossgang.commons.observables.jfr.ObservableEvents;
 
 import java.time.Duration;
 import java.util.Collections;
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicReference;
-
-import static java.util.concurrent.Executors.newScheduledThreadPool;
-import static org.ossgang.commons.utils.NamedDaemonThreadFactory.daemonThreadFactoryWithPrefix;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * An {@link ObservableValue} that only dispatch those items dispatched by the source {@link ObservableValue} that are not
  * followed by another item within the specified time window.
  * NOTE: if the source {@link ObservableValue} always dispatch items with a shorter rate then the time window, then
- * this debounced {@link ObservableValue} will never dispatch !
+ * this debounced {@link ObservableValue} will never dispatch, unless a maximum wait time is given (see
+ * {@link DebounceOptions})!
+ * <p>
+ * An update from the source only records the item and the time of the update. At most one timer (on the shared
+ * {@link TimingWheel}) is armed at a time: when it fires, it either dispatches the latest item, if the source was quiet
+ * for the whole time window (or the maximum wait time elapsed), or re-arms itself for the remaining time.
  *
  * @param <T> the type of the {@link ObservableValue}
  */
 public class DebouncedObservableValue<T> extends AbstractOperatorObservableValue<Object, T, T> {
 
-    private static final ScheduledExecutorService SCHEDULED_EXECUTOR_SERVICE = newScheduledThreadPool(1,
-            daemonThreadFactoryWithPrefix("ossgang-commons-DebouncedObservableValue-"));
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DebouncedObservableValue, Object> PENDING = AtomicReferenceFieldUpdater
+            .newUpdater(DebouncedObservableValue.class, Object.class, "pending");
 
-    private final AtomicReference<ScheduledFuture<?>> callback;
-    private final long debouncePeriodMs;
+    private final long debouncePeriodNanos;
+    private final long maxWaitNanos;
+    private final boolean leading;
+    private final boolean trailing;
+    private volatile Object pending;
+    private volatile long lastUpdateNanos;
+    /* start of the burst, or time of the last dispatch within the burst, for the maximum wait time */
+    private volatile long lastDispatchNanos;
+    private final SingleArmedTimer timer = new SingleArmedTimer(this::expired);
 
     public DebouncedObservableValue(Observable<T> source, Duration debouncePeriod) {
-        this.debouncePeriodMs = debouncePeriod.toMillis();
-        this.callback = new AtomicReference<>();
+        this(source, debouncePeriod, new DebounceOption[0]);
+    }
+
+    public DebouncedObservableValue(Observable<T> source, Duration debouncePeriod, DebounceOption... options) {
+        Objects.requireNonNull(debouncePeriod, "The debounce period must not be null");
+        /* as ever, a zero (or negative) period dispatches the latest item of a burst at the next tick of the timer */
+        this.debouncePeriodNanos = Math.max(0, debouncePeriod.toNanos());
+        long maxWait = 0;
+        boolean leadingEdge = false;
+        boolean trailingEdge = false;
+        for (DebounceOption option : options) {
+            if (option instanceof DebounceOptions.MaxWaitOption) {
+                maxWait = ((DebounceOptions.MaxWaitOption) option).maxWait().toNanos();
+            }
+            leadingEdge |= DebounceOptions.isLeading(option);
+            trailingEdge |= DebounceOptions.isTrailing(option);
+        }
+        this.maxWaitNanos = maxWait;
+        this.leading = leadingEdge;
+        this.trailing = trailingEdge || !leadingEdge;
         super.subscribeUpstreamWithFirstUpdate(Collections.singletonMap(new Object(), source));
     }
 
+    /* called for one item at a time, only the timer runs concurrently */
     @Override
     protected void applyOperation(Object key, T item) {
-        callback.updateAndGet(scheduledCallback -> {
-            if (scheduledCallback != null) {
-                scheduledCallback.cancel(false);
-            }
-            return SCHEDULED_EXECUTOR_SERVICE.schedule(() -> dispatchValue(item), debouncePeriodMs, TimeUnit.MILLISECONDS);
-        });
+        long now = System.nanoTime();
+        lastUpdateNanos = now;
+        if (leading && timer.tryArm()) {
+            pending = null; /* superseded by this item */
+            lastDispatchNanos = now;
+            dispatchValue(item);
+            timer.schedule(firstDelayNanos());
+            return;
+        }
+        pending = item;
+        if (timer.tryArm()) {
+            lastDispatchNanos = now;
+            ObservableEvents.debounceScheduled(this, TimeUnit.NANOSECONDS.toMillis(debouncePeriodNanos));
+            timer.schedule(firstDelayNanos());
+        }
+    }
+
+    private long firstDelayNanos() {
+        return maxWaitNanos > 0 ? Math.min(debouncePeriodNanos, maxWaitNanos) : debouncePeriodNanos;
+    }
+
+    private void expired() {
+        long now = System.nanoTime();
+        long quietRemainingNanos = debouncePeriodNanos - (now - lastUpdateNanos);
+        if (quietRemainingNanos <= 0) {
+            endOfBurst();
+            return;
+        }
+        if (maxWaitNanos <= 0) {
+            timer.schedule(quietRemainingNanos);
+            return;
+        }
+        long waitRemainingNanos = maxWaitNanos - (now - lastDispatchNanos);
+        if (waitRemainingNanos <= 0) {
+            dispatchPending();
+            lastDispatchNanos = now;
+            waitRemainingNanos = maxWaitNanos;
+        }
+        timer.schedule(Math.min(quietRemainingNanos, waitRemainingNanos));
+    }
+
+    private void endOfBurst() {
+        if (trailing) {
+            dispatchPending();
+        } else {
+            pending = null;
+        }
+        if (timer.disarm(() -> pending != null)) {
+            lastDispatchNanos = System.nanoTime();
+            timer.schedule(firstDelayNanos());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatchPending() {
+        T item = (T) PENDING.getAndSet(this, null);
+        if (item != null) {
+            dispatchValue(item);
+        }
+    }
+
+    /**
+     * @return true if the timer is armed, i.e. a burst of updates is in progress
+     */
+    boolean isTimerArmed() {
+        return timer.isArmed();
     }
 
 }
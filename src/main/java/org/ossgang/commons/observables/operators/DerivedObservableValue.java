@@ -1,10 +1,14 @@
 package org.ossgang.commons.observables.operators;
 
+import org.ossgang.commons.observables.DispatchExecutors;
+import org.ossgang.commons.observables.DispatchingObservable;
 import org.ossgang.commons.observables.Observable;
 import org.ossgang.commons.observables.ObservableValue;
+import org.ossgang.commons.observables.jfr.ObservableEvents;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -15,6 +19,15 @@ import static org.ossgang.commons.monads.Maybe.attempt;
  * An {@link ObservableValue} which gets its data from a parent (upstream) {@link ObservableValue} or {@link Observable},
  * applying a transformation. Transformations can include arbitrary mapping and/or filtering. If a transformation fails
  * (the mapping function throws), the exception is propagated downstream.
+ * <p>
+ * Derived values subscribe upstream eagerly, so that they do not miss any update, whatever the transformation. Only
+ * the mappings created explicitly as lazy (see {@link #lazyMap(ObservableValue, Function)}) subscribe upstream lazily
+ * (see {@link AbstractOperatorObservableValue}): the mapping function is then only applied while there are
+ * subscribers, or on demand by {@link #get()}.
+ * <p>
+ * Only chains of lazy mappings are fused into a single step. The eager operators (map, filter and derive) are never
+ * fused: each stage must apply its function to every update, as it may have side effects and its exceptions are
+ * reported even while nobody observes it, so each stage still dispatches to the next one.
  *
  * @param <K> the indexing type
  * @param <I> the type of the source observable
@@ -23,30 +36,161 @@ import static org.ossgang.commons.monads.Maybe.attempt;
 public class DerivedObservableValue<K, I, O> extends AbstractOperatorObservableValue<K, I, O> {
 
     private static final Object SINGLE = new Object();
+
+    private final Map<K, ? extends Observable<I>> sourceObservables;
     private final BiFunction<K, I, Optional<O>> mapper;
+    private final boolean lazy;
+    @SuppressWarnings({"FieldCanBeLocal", "unused"})
+    private final Observable<?> fusedUpstream; /* keeps the fused stages reachable, as the unfused chain would */
+    private volatile Evaluation<I, O> lastEvaluation; /* lazy mappings only, see evaluate() */
 
     private DerivedObservableValue(Map<K, ? extends Observable<I>> sourceObservables,
-                                   BiFunction<K, I, Optional<O>> mapper) {
+                                   BiFunction<K, I, Optional<O>> mapper, boolean lazy) {
+        this(sourceObservables, mapper, lazy, null);
+    }
+
+    private DerivedObservableValue(Map<K, ? extends Observable<I>> sourceObservables,
+                                   BiFunction<K, I, Optional<O>> mapper, boolean lazy, Observable<?> fusedUpstream) {
+        super(inheritedExecutor(sourceObservables));
+        this.sourceObservables = sourceObservables;
         this.mapper = mapper;
-        super.subscribeUpstreamWithFirstUpdate(sourceObservables);
+        this.lazy = lazy;
+        this.fusedUpstream = fusedUpstream;
+        if (lazy) {
+            super.subscribeUpstreamLazily(sourceObservables);
+        } else {
+            super.subscribeUpstreamWithFirstUpdate(sourceObservables);
+        }
     }
 
     public static <K, I, O> ObservableValue<O> derive(Map<K, ? extends Observable<I>> sourceObservables,
                                                       BiFunction<K, I, Optional<O>> mapper) {
-        return new DerivedObservableValue<>(sourceObservables, mapper);
+        return new DerivedObservableValue<>(sourceObservables, mapper, false);
     }
 
     public static <I, O> ObservableValue<O> derive(Observable<I> source, Function<I, Optional<O>> mapper) {
-        return new DerivedObservableValue<>(singletonMap(SINGLE, source), (k, v) -> mapper.apply(v));
+        return new DerivedObservableValue<>(singletonMap(SINGLE, source), (k, v) -> mapper.apply(v), false);
+    }
+
+    /**
+     * Map the values of the given source lazily: the mapped value only subscribes to the source while it has
+     * subscribers. The mapping function must be free of side effects, as it is not applied to the updates nobody
+     * observes, and exceptions it throws while unobserved are only reported when the value is computed on demand by
+     * {@link #get()}.
+     * <p>
+     * Lazy mappings of lazy mappings are fused: the new value subscribes directly to the source of the chain and
+     * applies the composed function in one step, instead of one dispatch per stage. The intermediate value is not
+     * affected, and can still be used on its own. Its mapping function is still evaluated once per source value, even
+     * if the intermediate value is observed, or shared by several fused mappings: the result is kept for the other
+     * consumers.
+     *
+     * @param source the source to map
+     * @param mapper the mapping function
+     * @return the mapped value
+     */
+    @SuppressWarnings("unchecked")
+    public static <I, O> ObservableValue<O> lazyMap(ObservableValue<I> source, Function<I, O> mapper) {
+        if (source instanceof DerivedObservableValue && ((DerivedObservableValue<?, ?, ?>) source).isFusable()) {
+            return fuse((DerivedObservableValue<?, ?, I>) source, mapper.andThen(Optional::of));
+        }
+        return new DerivedObservableValue<>(singletonMap(SINGLE, source), (k, v) -> Optional.of(mapper.apply(v)),
+                true);
+    }
+
+    private static <K, X, I, O> ObservableValue<O> fuse(DerivedObservableValue<K, X, I> upstream,
+                                                        Function<I, Optional<O>> mapper) {
+        return new DerivedObservableValue<>(upstream.sourceObservables,
+                (k, v) -> upstream.evaluate(v).flatMap(mapper), true, upstream);
+    }
+
+    private boolean isFusable() {
+        return lazy && sourceObservables.size() == 1 && sourceObservables.containsKey(SINGLE);
+    }
+
+    /**
+     * A value derived only from synchronous observables is synchronous as well, otherwise the default is used.
+     */
+    private static Executor inheritedExecutor(Map<?, ? extends Observable<?>> sourceObservables) {
+        if (!sourceObservables.isEmpty()
+                && sourceObservables.values().stream().allMatch(DispatchingObservable::isSynchronous)) {
+            return DispatchExecutors.synchronous();
+        }
+        return null;
     }
 
     @Override
     protected void applyOperation(K key, I item) {
-        attempt(() -> mapper.apply(key, item)) //
+        Object event = ObservableEvents.beginOperation();
+        Optional<O> result = attempt(() -> lazy ? evaluate(item) : mapper.apply(key, item)) //
                 .ifException(this::dispatchException) //
                 .optionalValue() //
-                .orElseGet(Optional::empty) //
-                .ifPresent(this::dispatchValue);
+                .orElseGet(Optional::empty);
+        ObservableEvents.applied(event, this);
+        result.ifPresent(this::dispatchValue);
+    }
+
+    /**
+     * Applies the transformation of a lazy mapping to a value of its source. The last result (or failure) is kept, so
+     * that the transformation is evaluated once per source value, whether for an update, on demand by {@link #get()},
+     * or by the fused mappings downstream: being free of side effects, it would give the same result again. Concurrent
+     * first evaluations of the same value are not excluded, they just compute the same result twice.
+     */
+    @SuppressWarnings("unchecked")
+    private Optional<O> evaluate(I value) {
+        Evaluation<I, O> last = lastEvaluation;
+        if (last == null || last.input != value) {
+            try {
+                last = new Evaluation<>(value, mapper.apply((K) SINGLE, value), null);
+            } catch (RuntimeException e) {
+                last = new Evaluation<>(value, Optional.empty(), e);
+            }
+            lastEvaluation = last;
+        }
+        if (last.failure != null) {
+            throw last.failure;
+        }
+        return last.result;
+    }
+
+    /**
+     * Applies the transformation to the current value of the source, once per source value (see
+     * {@link #evaluate(Object)}). The result is kept as the last known value. Exceptions of the transformation are
+     * dispatched like during an update, and the last known value is used instead.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Optional<O> computeOnDemand() {
+        if (!lazy) {
+            return Optional.empty();
+        }
+        I value = ((ObservableValue<I>) sourceObservables.get(SINGLE)).get();
+        if (value == null) {
+            return Optional.empty();
+        }
+        Evaluation<I, O> last = lastEvaluation;
+        boolean alreadyEvaluated = last != null && last.input == value;
+        try {
+            Optional<O> result = evaluate(value);
+            result.ifPresent(this::updateWithoutDispatching);
+            return result;
+        } catch (RuntimeException e) {
+            if (!alreadyEvaluated) {
+                dispatchException(e);
+            }
+            return Optional.empty();
+        }
+    }
+
+    private static final class Evaluation<I, O> {
+        private final I input;
+        private final Optional<O> result;
+        private final RuntimeException failure;
+
+        private Evaluation(I input, Optional<O> result, RuntimeException failure) {
+            this.input = input;
+            this.result = result;
+            this.failure = failure;
+        }
     }
 
 }
@@ -0,0 +1,44 @@
+package org.ossgang.commons.observables.operators;
+
+import static java.util.Collections.singletonMap;
+
+import org.ossgang.commons.observables.Observable;
+import org.ossgang.commons.observables.ObservableValue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An {@link ObservableValue} that dispatches the latest item of the source {@link Observable} each time a trigger
+ * {@link Observable} emits, if the source emitted since the previous trigger. Exceptions of both the source and the
+ * trigger are propagated downstream.
+ *
+ * @param <T> the type of the {@link ObservableValue}
+ */
+public class SampledObservableValue<T> extends AbstractOperatorObservableValue<Object, Object, T> {
+
+    private static final Object SOURCE = new Object();
+    private static final Object TRIGGER = new Object();
+
+    private final AtomicReference<T> pending = new AtomicReference<>();
+
+    @SuppressWarnings("unchecked")
+    public SampledObservableValue(Observable<T> source, Observable<?> trigger) {
+        super.subscribeUpstreamWithFirstUpdate(singletonMap(SOURCE, (Observable<Object>) source));
+        /* the current value of a trigger is not an emission, it must not take a sample */
+        super.subscribeUpstreamWithoutFirstUpdate(singletonMap(TRIGGER, (Observable<Object>) trigger));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void applyOperation(Object key, Object item) {
+        if (key == SOURCE) {
+            pending.set((T) item);
+            return;
+        }
+        T sample = pending.getAndSet(null);
+        if (sample != null) {
+            dispatchValue(sample);
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.ossgang.commons.observables.operators;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A timer on the shared {@link TimingWheel} of which at most one timeout is outstanding at a time, for the time based
+ * operators: the updates of the source only arm it if it is not armed yet, and the task re-arms it or disarms it when
+ * it fires. This avoids scheduling (and cancelling) a timeout per update.
+ * <p>
+ * Arming is done in two steps: {@link #tryArm()} claims the timer, and the claiming thread then schedules the task with
+ * {@link #schedule(long)}, after updating the state the task relies on.
+ */
+final class SingleArmedTimer {
+
+    private static final AtomicIntegerFieldUpdater<SingleArmedTimer> ARMED = AtomicIntegerFieldUpdater
+            .newUpdater(SingleArmedTimer.class, "armed");
+
+    private final Runnable task;
+    private volatile int armed;
+
+    SingleArmedTimer(Runnable task) {
+        this.task = task;
+    }
+
+    /**
+     * @return true if the timer was not armed and is now armed by the caller, which must {@link #schedule(long)} it
+     */
+    boolean tryArm() {
+        return armed == 0 && ARMED.compareAndSet(this, 0, 1);
+    }
+
+    /**
+     * Schedule the task, either after {@link #tryArm()} succeeded, or from the task itself to stay armed.
+     *
+     * @param delayNanos the delay after which to run the task
+     */
+    void schedule(long delayNanos) {
+        TimingWheel.shared().schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Disarm the timer, from its task, once the pending work is done (so that an update arming the timer again is
+     * handled after it). An update which arrived while the timer was still armed did not arm it by itself: if the given
+     * condition holds after disarming, the timer is armed again.
+     *
+     * @param rearmCondition whether an update is still pending after disarming
+     * @return true if the timer was armed again by the caller, which must {@link #schedule(long)} it
+     */
+    boolean disarm(BooleanSupplier rearmCondition) {
+        armed = 0;
+        return rearmCondition.getAsBoolean() && tryArm();
+    }
+
+    /**
+     * @return true if a timeout is outstanding
+     */
+    boolean isArmed() {
+        return armed != 0;
+    }
+}
@@ -0,0 +1,86 @@
+package org.ossgang.commons.observables.operators;
+
+import org.ossgang.commons.observables.Observable;
+import org.ossgang.commons.observables.ObservableValue;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * An {@link ObservableValue} that dispatches at most one item of the source {@link Observable} per time window, either
+ * the first one of the window ({@link #throttleFirst(Observable, Duration)}) or the last one, at the end of the window
+ * ({@link #throttleLast(Observable, Duration)}). Unlike a debounce, a source which never goes quiet still yields one item
+ * per window.
+ * <p>
+ * Windows are only opened by updates of the source: without updates, no timer is armed on the shared
+ * {@link TimingWheel}.
+ *
+ * @param <T> the type of the {@link ObservableValue}
+ */
+public class ThrottledObservableValue<T> extends AbstractOperatorObservableValue<Object, T, T> {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ThrottledObservableValue, Object> PENDING = AtomicReferenceFieldUpdater
+            .newUpdater(ThrottledObservableValue.class, Object.class, "pending");
+
+    private final long windowNanos;
+    private final boolean last;
+    private volatile Object pending;
+    private final SingleArmedTimer timer = new SingleArmedTimer(this::windowEnded);
+    private long windowStartNanos; /* only accessed by applyOperation(), for throttleFirst */
+    private boolean windowOpen;
+
+    private ThrottledObservableValue(Observable<T> source, Duration window, boolean last) {
+        if (window.isZero() || window.isNegative()) {
+            throw new IllegalArgumentException("The throttle window must be positive, but was " + window);
+        }
+        this.windowNanos = window.toNanos();
+        this.last = last;
+        super.subscribeUpstreamWithFirstUpdate(Collections.singletonMap(new Object(), source));
+    }
+
+    /**
+     * @see org.ossgang.commons.observables.Observables#throttleFirst(Observable, Duration)
+     */
+    public static <T> ObservableValue<T> throttleFirst(Observable<T> source, Duration window) {
+        return new ThrottledObservableValue<>(source, window, false);
+    }
+
+    /**
+     * @see org.ossgang.commons.observables.Observables#throttleLast(Observable, Duration)
+     */
+    public static <T> ObservableValue<T> throttleLast(Observable<T> source, Duration window) {
+        return new ThrottledObservableValue<>(source, window, true);
+    }
+
+    /* called for one item at a time, only the timer runs concurrently */
+    @Override
+    protected void applyOperation(Object key, T item) {
+        if (last) {
+            pending = item;
+            if (timer.tryArm()) {
+                timer.schedule(windowNanos);
+            }
+            return;
+        }
+        long now = System.nanoTime();
+        if (!windowOpen || now - windowStartNanos >= windowNanos) {
+            windowOpen = true;
+            windowStartNanos = now;
+            dispatchValue(item);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void windowEnded() {
+        T item = (T) PENDING.getAndSet(this, null);
+        if (item != null) {
+            dispatchValue(item);
+        }
+        if (timer.disarm(() -> pending != null)) {
+            timer.schedule(windowNanos);
+        }
+    }
+
+}
@@ -0,0 +1,301 @@
+package org.ossgang.commons.observables.operators;
+
+import static java.util.Objects.requireNonNull;
+import static org.ossgang.commons.observables.ExceptionHandlers.dispatchToUncaughtExceptionHandler;
+import static org.ossgang.commons.utils.NamedDaemonThreadFactory.daemonThreadFactoryWithPrefix;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timing wheel, scheduling large numbers of short-lived timeouts (e.g. for debouncing) with O(1) cost per
+ * scheduling and cancellation, at the price of a limited precision: tasks are run at the first tick after their delay
+ * elapsed.
+ * <p>
+ * The wheel is an array of buckets, each holding a linked list of timeouts. A single worker thread advances one bucket
+ * per tick and runs the timeouts which are due; timeouts further away than one revolution of the wheel wait for the
+ * corresponding number of rounds. New and cancelled timeouts are handed to the worker through lock-free queues, so
+ * scheduling threads never contend on the buckets. The worker is started on the first scheduled timeout, and parks
+ * without ticking while no timeout is pending.
+ * <p>
+ * Tasks are run on the worker thread, they must be short (e.g. hand over a value to an observable) to not delay the
+ * following timeouts. A failing task is reported to the global uncaught exception handler (see
+ * {@link org.ossgang.commons.observables.Observables#setUncaughtExceptionHandler(java.util.function.Consumer)}), errors
+ * wrapped in an {@link IllegalStateException}, and the worker carries on with the following timeouts.
+ */
+public final class TimingWheel {
+
+    private static final TimingWheel SHARED = new TimingWheel(Duration.ofMillis(1), 512,
+            daemonThreadFactoryWithPrefix("ossgang-commons-TimingWheel-"));
+
+    private final long tickNanos;
+    private final Bucket[] buckets;
+    private final int mask;
+    private final ThreadFactory threadFactory;
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong(0);
+    private final long startNanos = System.nanoTime();
+    private volatile Thread worker;
+    private volatile boolean shutdown = false;
+    private long tick = 0; /* only accessed by the worker */
+
+    /**
+     * @param tick the duration of a tick, i.e. the precision of the timeouts
+     * @param wheelSize the number of buckets, must be a power of two
+     * @param threadFactory the factory for the worker thread
+     */
+    public TimingWheel(Duration tick, int wheelSize, ThreadFactory threadFactory) {
+        requireNonNull(tick, "The tick duration must not be null");
+        if (tick.isZero() || tick.isNegative()) {
+            throw new IllegalArgumentException("The tick duration must be positive, but was " + tick);
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("The wheel size must be a power of two, but was " + wheelSize);
+        }
+        this.tickNanos = tick.toNanos();
+        this.threadFactory = requireNonNull(threadFactory, "The thread factory must not be null");
+        this.buckets = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.mask = wheelSize - 1;
+    }
+
+    /**
+     * @return the timing wheel shared by the operators of this library, with a tick of one millisecond
+     */
+    public static TimingWheel shared() {
+        return SHARED;
+    }
+
+    /**
+     * Run the given task once, after the given delay.
+     *
+     * @param task the task to run on the worker thread of this wheel
+     * @param delay the delay
+     * @param unit the unit of the delay
+     * @return the handle to cancel the task
+     * @throws IllegalStateException if the wheel was shut down
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        requireNonNull(task, "The task must not be null");
+        if (shutdown) {
+            throw new IllegalStateException("The timing wheel was shut down");
+        }
+        Timeout timeout = new Timeout(this, task, System.nanoTime() - startNanos + unit.toNanos(Math.max(0, delay)));
+        scheduled.add(timeout);
+        if (pending.getAndIncrement() == 0) {
+            LockSupport.unpark(worker());
+        }
+        return timeout;
+    }
+
+    /**
+     * @return the number of timeouts scheduled, but neither run nor cancelled yet
+     */
+    public long pendingTimeouts() {
+        return pending.get();
+    }
+
+    /**
+     * Stop the worker thread of this wheel. The timeouts still pending are discarded, no timeout can be scheduled
+     * afterwards. The {@link #shared()} wheel can not be shut down.
+     */
+    public void shutdown() {
+        if (this == SHARED) {
+            throw new UnsupportedOperationException("The shared timing wheel can not be shut down");
+        }
+        synchronized (this) {
+            shutdown = true;
+            if (worker != null) {
+                LockSupport.unpark(worker);
+            }
+        }
+    }
+
+    private Thread worker() {
+        Thread thread = worker;
+        if (thread == null) {
+            synchronized (this) {
+                thread = worker;
+                if (thread == null && !shutdown) {
+                    thread = threadFactory.newThread(this::work);
+                    thread.setDaemon(true);
+                    thread.start();
+                    worker = thread;
+                }
+            }
+        }
+        return thread;
+    }
+
+    private void work() {
+        while (!shutdown) {
+            if (pending.get() == 0) {
+                LockSupport.park(this);
+                /* nothing in the wheel, no need to catch up with the ticks missed while parked */
+                tick = Math.max(tick, currentTick());
+                continue;
+            }
+            long waitNanos = tick * tickNanos - (System.nanoTime() - startNanos);
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(this, waitNanos);
+                continue;
+            }
+            transferScheduled();
+            removeCancelled();
+            expire(buckets[(int) tick & mask]);
+            tick++;
+        }
+    }
+
+    private long currentTick() {
+        return (System.nanoTime() - startNanos) / tickNanos;
+    }
+
+    private void transferScheduled() {
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.state != Timeout.PENDING) {
+                continue; /* cancelled before reaching the wheel */
+            }
+            long dueTick = Math.max(tick, (timeout.deadlineNanos + tickNanos - 1) / tickNanos);
+            timeout.remainingRounds = (dueTick - tick) / buckets.length;
+            buckets[(int) dueTick & mask].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+            pending.decrementAndGet();
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.state != Timeout.PENDING) {
+                bucket.remove(timeout); /* cancelled meanwhile, accounted for by removeCancelled() */
+            } else if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+            } else {
+                bucket.remove(timeout);
+                if (Timeout.STATE.compareAndSet(timeout, Timeout.PENDING, Timeout.EXPIRED)) {
+                    pending.decrementAndGet();
+                    run(timeout.task);
+                }
+            }
+            timeout = next;
+        }
+    }
+
+    private static void run(Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            /* the worker is shared by all the timeouts, it must survive any failing task */
+            dispatchToUncaughtExceptionHandler(e);
+        } catch (Throwable e) {
+            dispatchToUncaughtExceptionHandler(new IllegalStateException("Error in a timing wheel task", e));
+        }
+    }
+
+    /**
+     * A task scheduled on a {@link TimingWheel}.
+     */
+    public static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater
+                .newUpdater(Timeout.class, "state");
+
+        private final TimingWheel wheel;
+        private final Runnable task;
+        private final long deadlineNanos;
+        private volatile int state = PENDING;
+        /* only accessed by the worker */
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(TimingWheel wheel, Runnable task, long deadlineNanos) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Cancel the task, if it did not run yet.
+         *
+         * @return true if the task was cancelled, false if it already ran or was cancelled before
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        /**
+         * @return true if the task was cancelled before it ran
+         */
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        /**
+         * @return true if the task ran (or is running)
+         */
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+    }
+
+    /* a doubly linked list of timeouts, only accessed by the worker */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.previous = tail;
+                tail = timeout;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            } else {
+                tail = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
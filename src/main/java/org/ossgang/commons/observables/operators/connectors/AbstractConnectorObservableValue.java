@@ -1,14 +1,19 @@
 package org.ossgang.commons.observables.operators.connectors;
 
 import org.ossgang.commons.observables.DispatchingObservableValue;
+import org.ossgang.commons.observables.Observable;
 import org.ossgang.commons.observables.ObservableValue;
 import org.ossgang.commons.observables.Observers;
 import org.ossgang.commons.observables.Subscription;
+import org.ossgang.commons.observables.UpstreamAware;
 import org.ossgang.commons.properties.Properties;
 import org.ossgang.commons.properties.Property;
 
+import java.util.Map;
 import java.util.function.Supplier;
 
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
 import static java.util.Objects.requireNonNull;
 import static org.ossgang.commons.observables.SubscriptionOptions.FIRST_UPDATE;
 import static org.ossgang.commons.observables.operators.connectors.ConnectorState.CONNECTED;
@@ -19,7 +24,8 @@ import static org.ossgang.commons.observables.operators.connectors.ConnectorStat
  *
  * @param <T> the type of the observable
  */
-public abstract class AbstractConnectorObservableValue<T> extends DispatchingObservableValue<T> {
+public abstract class AbstractConnectorObservableValue<T> extends DispatchingObservableValue<T>
+        implements UpstreamAware {
 
     private final Object lock = new Object();
     private final Property<ConnectorState> connectionState;
@@ -71,6 +77,16 @@ public abstract class AbstractConnectorObservableValue<T> extends DispatchingObs
         }
     }
 
+    /**
+     * @return the observable this connector is connected to, keyed by "upstream", or an empty map if disconnected
+     */
+    @Override
+    public Map<String, Observable<?>> upstreams() {
+        synchronized (lock) {
+            return upstreamObservable != null ? singletonMap("upstream", upstreamObservable) : emptyMap();
+        }
+    }
+
     protected ObservableValue<ConnectorState> connectionState() {
         return connectionState;
     }
@@ -22,6 +22,8 @@
 
 package org.ossgang.commons.properties;
 
+import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 import org.ossgang.commons.observables.ObservableValue;
@@ -57,6 +59,20 @@ public class Properties {
         return new SimpleProperty<>(null);
     }
 
+    /**
+     * Create a {@link Property} with an initial value, which delivers its updates on the given {@link Executor}
+     * instead of the global default one.
+     *
+     * @param initialValue     the initial value, may be null
+     * @param dispatchExecutor the executor to deliver updates on
+     * @param <T>              the type of the {@link Property}
+     * @return the new property
+     * @see org.ossgang.commons.observables.DispatchExecutors
+     */
+    public static <T> AtomicProperty<T> property(T initialValue, Executor dispatchExecutor) {
+        return new SimpleProperty<>(initialValue, Objects.requireNonNull(dispatchExecutor, "executor must not be null"));
+    }
+
     /**
      * Create a {@link Property} that will bind the {@link Property#get()} and {@link Property#subscribe(Observer, SubscriptionOption...)}
      * to the specified {@link ObservableValue} and the {@link Property#set(Object)} to the specified {@link Consumer}
@@ -24,6 +24,7 @@ package org.ossgang.commons.properties;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.concurrent.Executor;
 import java.util.function.BinaryOperator;
 
 import org.ossgang.commons.observables.DispatchingObservableValue;
@@ -40,6 +41,10 @@ public class SimpleProperty<T> extends DispatchingObservableValue<T> implements
         super(initial);
     }
 
+    SimpleProperty(T initial, Executor dispatchExecutor) {
+        super(initial, dispatchExecutor);
+    }
+
     @Override
     public void set(T value) {
         dispatchValue(value);
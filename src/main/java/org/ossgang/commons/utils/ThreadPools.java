@@ -0,0 +1,75 @@
+package org.ossgang.commons.utils;
+
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.ossgang.commons.utils.NamedDaemonThreadFactory.daemonThreadFactoryWithPrefix;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Factory for the internal thread pools of the library.
+ * <p>
+ * On Java 21 or newer, the pools start a new virtual thread per task, so that tasks which block (e.g. observers doing
+ * I/O) do not require a platform thread each. On older runtimes, or if the system property
+ * {@value #VIRTUAL_THREADS_PROPERTY} is set to false, cached pools of named daemon platform threads are used. The
+ * virtual thread API is accessed reflectively, so that the library still runs on Java 8.
+ */
+public final class ThreadPools {
+
+    /**
+     * System property to disable virtual threads (set to "false"), even if they are available.
+     */
+    public static final String VIRTUAL_THREADS_PROPERTY = "ossgang.commons.virtualThreads";
+
+    private static final int VIRTUAL_THREADS_JAVA_VERSION = 21;
+
+    private ThreadPools() {
+        throw new UnsupportedOperationException("static only");
+    }
+
+    /**
+     * Create an unbounded pool for short-lived tasks, backed by virtual threads if possible, otherwise by a cached pool
+     * of daemon threads.
+     *
+     * @param prefix the name prefix of the threads
+     * @return a new executor service
+     */
+    public static ExecutorService cachedDaemonPool(String prefix) {
+        if (useVirtualThreads()) {
+            try {
+                return newVirtualThreadPerTaskExecutor(prefix);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                /* e.g. a restricted runtime, fall back to platform threads */
+            }
+        }
+        return newCachedThreadPool(daemonThreadFactoryWithPrefix(prefix));
+    }
+
+    /**
+     * @return true if the pools created by this class use virtual threads
+     */
+    public static boolean useVirtualThreads() {
+        return javaFeatureVersion() >= VIRTUAL_THREADS_JAVA_VERSION
+                && SystemProperties.getProperty(VIRTUAL_THREADS_PROPERTY, Boolean::parseBoolean).orElse(true);
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor(String prefix) throws ReflectiveOperationException {
+        Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+        Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+        builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+        ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+    }
+
+    private static int javaFeatureVersion() {
+        String version = System.getProperty("java.specification.version", "1.8");
+        try {
+            return version.startsWith("1.") ? Integer.parseInt(version.substring(2)) : Integer.parseInt(version);
+        } catch (NumberFormatException e) {
+            return 8;
+        }
+    }
+}
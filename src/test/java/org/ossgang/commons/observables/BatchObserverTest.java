@@ -0,0 +1,98 @@
+package org.ossgang.commons.observables;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+public class BatchObserverTest {
+
+    private static final Duration LINGER = Duration.ofMillis(100);
+    private static final RuntimeException ANY_EXCEPTION = new RuntimeException("Exception");
+
+    @Test
+    public void valuesDispatchedWithinLingerTime_areDeliveredAsOneBatch() throws Exception {
+        TestBatchObserver observer = new TestBatchObserver(Integer.MAX_VALUE, 10);
+        Dispatcher<Integer> dispatcher = Observables.dispatcher();
+        dispatcher.subscribe(observer);
+
+        for (int i = 0; i < 10; i++) {
+            dispatcher.dispatchValue(i);
+        }
+
+        observer.done.get(1, SECONDS);
+        assertThat(observer.events).containsExactly(asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+    }
+
+    @Test
+    public void batches_areLimitedToMaxBatchSize() throws Exception {
+        TestBatchObserver observer = new TestBatchObserver(3, 7);
+        Dispatcher<Integer> dispatcher = Observables.dispatcher();
+        dispatcher.subscribe(observer);
+
+        for (int i = 0; i < 7; i++) {
+            dispatcher.dispatchValue(i);
+        }
+
+        observer.done.get(1, SECONDS);
+        assertThat(observer.events).containsExactly(asList(0, 1, 2), asList(3, 4, 5), asList(6));
+    }
+
+    @Test
+    public void exceptions_endTheBatchAndAreDeliveredInOrder() throws Exception {
+        TestBatchObserver observer = new TestBatchObserver(Integer.MAX_VALUE, 3);
+        Dispatcher<Integer> dispatcher = Observables.dispatcher();
+        dispatcher.subscribe(observer);
+
+        dispatcher.dispatchValue(0);
+        dispatcher.dispatchValue(1);
+        dispatcher.dispatchException(ANY_EXCEPTION);
+        dispatcher.dispatchValue(2);
+
+        observer.done.get(1, SECONDS);
+        assertThat(observer.events).containsExactly(asList(0, 1), ANY_EXCEPTION, asList(2));
+    }
+
+    private static class TestBatchObserver implements BatchObserver<Integer> {
+        private final List<Object> events = new ArrayList<>();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final int maxBatchSize;
+        private final int expectedValues;
+        private int receivedValues = 0;
+
+        private TestBatchObserver(int maxBatchSize, int expectedValues) {
+            this.maxBatchSize = maxBatchSize;
+            this.expectedValues = expectedValues;
+        }
+
+        @Override
+        public void onValues(List<Integer> values) {
+            events.add(new ArrayList<>(values));
+            receivedValues += values.size();
+            if (receivedValues == expectedValues) {
+                done.complete(null);
+            }
+        }
+
+        @Override
+        public void onException(Throwable exception) {
+            events.add(exception);
+        }
+
+        @Override
+        public int maxBatchSize() {
+            return maxBatchSize;
+        }
+
+        @Override
+        public Duration maxLinger() {
+            return LINGER;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.ossgang.commons.observables;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Test;
+import org.ossgang.commons.observables.exceptions.UpdateDeliveryException;
+import org.ossgang.commons.properties.Properties;
+import org.ossgang.commons.properties.Property;
+
+public class DispatchExecutorsTest {
+
+    private static final String DISPATCH_THREAD_NAME = "DispatchExecutorsTest-dispatcher";
+
+    private static final Executor NAMED_THREAD_EXECUTOR = task -> {
+        Thread thread = new Thread(task, DISPATCH_THREAD_NAME);
+        thread.setDaemon(true);
+        thread.start();
+    };
+
+    @After
+    public void restoreDefaults() {
+        Observables.setDefaultDispatchExecutor(DispatchExecutors.defaultPool());
+        Observables.setUncaughtExceptionHandler(Throwable::printStackTrace);
+    }
+
+    @Test
+    public void perObservableExecutor_isUsedForDelivery() throws Exception {
+        CompletableFuture<String> threadName = new CompletableFuture<>();
+        Dispatcher<String> dispatcher = Observables.dispatcher(null, NAMED_THREAD_EXECUTOR);
+        dispatcher.subscribe(v -> threadName.complete(Thread.currentThread().getName()));
+
+        dispatcher.dispatchValue("A");
+
+        assertThat(threadName.get(1, SECONDS)).isEqualTo(DISPATCH_THREAD_NAME);
+    }
+
+    @Test
+    public void perSubscriptionExecutor_overridesObservableExecutor() throws Exception {
+        CompletableFuture<String> threadName = new CompletableFuture<>();
+        Property<String> property = Properties.property("A", DispatchExecutors.defaultPool());
+        property.subscribe(v -> threadName.complete(Thread.currentThread().getName()),
+                DispatchOptions.executor(NAMED_THREAD_EXECUTOR));
+
+        property.set("B");
+
+        assertThat(threadName.get(1, SECONDS)).isEqualTo(DISPATCH_THREAD_NAME);
+    }
+
+    @Test
+    public void globalDefaultExecutor_isUsedForExistingObservables() throws Exception {
+        CompletableFuture<String> threadName = new CompletableFuture<>();
+        Property<String> property = Properties.property("A");
+        property.subscribe(v -> threadName.complete(Thread.currentThread().getName()));
+
+        Observables.setDefaultDispatchExecutor(NAMED_THREAD_EXECUTOR);
+        property.set("B");
+
+        assertThat(threadName.get(1, SECONDS)).isEqualTo(DISPATCH_THREAD_NAME);
+    }
+
+    @Test
+    public void rejectedDelivery_isReportedToUncaughtExceptionHandler() throws Exception {
+        CompletableFuture<Exception> exception = new CompletableFuture<>();
+        Observables.setUncaughtExceptionHandler(exception::complete);
+        Dispatcher<String> dispatcher = Observables.dispatcher(null, task -> {
+            throw new RejectedExecutionException("saturated");
+        });
+        dispatcher.subscribe(v -> {
+        });
+
+        dispatcher.dispatchValue("A");
+
+        assertThat(exception.get(1, SECONDS)).isInstanceOf(UpdateDeliveryException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(((UpdateDeliveryException) exception.get()).getValue()).isEqualTo("A");
+    }
+
+    @Test
+    public void boundedPool_deliversAllUpdates() throws Exception {
+        CompletableFuture<Integer> lastValue = new CompletableFuture<>();
+        Dispatcher<Integer> dispatcher = Observables.dispatcher(null, DispatchExecutors.boundedPool(2, 4));
+        dispatcher.subscribe(v -> {
+            if (v == 99) {
+                lastValue.complete(v);
+            }
+        });
+
+        for (int i = 0; i < 100; i++) {
+            dispatcher.dispatchValue(i);
+        }
+
+        assertThat(lastValue.get(1, SECONDS)).isEqualTo(99);
+    }
+}
@@ -0,0 +1,720 @@
+package org.ossgang.commons.observables;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.ossgang.commons.observables.SubscriptionOptions.FIRST_UPDATE;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.ossgang.commons.observables.exceptions.BacklogOverflowException;
+import org.ossgang.commons.observables.exceptions.SlowObserverException;
+import org.ossgang.commons.observables.exceptions.UpdateDeliveryException;
+import org.ossgang.commons.properties.Properties;
+import org.ossgang.commons.properties.Property;
+
+public class DispatchingObservableTest {
+
+    private static final int UPDATE_COUNT = 10_000;
+
+    @Test
+    public void updates_areDeliveredInDispatchOrder_oneAtATime() throws Exception {
+        List<Integer> received = new ArrayList<>();
+        AtomicInteger concurrentDeliveries = new AtomicInteger(0);
+        AtomicInteger maxConcurrentDeliveries = new AtomicInteger(0);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Dispatcher<Integer> dispatcher = Observables.dispatcher();
+        dispatcher.subscribe(value -> {
+            maxConcurrentDeliveries.accumulateAndGet(concurrentDeliveries.incrementAndGet(), Math::max);
+            received.add(value);
+            concurrentDeliveries.decrementAndGet();
+            if (value == UPDATE_COUNT - 1) {
+                done.complete(null);
+            }
+        });
+
+        for (int i = 0; i < UPDATE_COUNT; i++) {
+            dispatcher.dispatchValue(i);
+        }
+
+        done.get(5, SECONDS);
+        assertThat(maxConcurrentDeliveries.get()).isEqualTo(1);
+        assertThat(received).hasSize(UPDATE_COUNT);
+        for (int i = 0; i < UPDATE_COUNT; i++) {
+            assertThat(received.get(i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void firstUpdate_isDeliveredBeforeSubsequentUpdates() throws Exception {
+        List<String> received = new ArrayList<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Property<String> property = Properties.property("A");
+        property.subscribe(value -> {
+            received.add(value);
+            if ("C".equals(value)) {
+                done.complete(null);
+            }
+        }, FIRST_UPDATE);
+
+        property.set("B");
+        property.set("C");
+
+        done.get(1, SECONDS);
+        assertThat(received).containsExactly("A", "B", "C");
+    }
+
+    @Test
+    public void firstUpdate_isDroppedIfANewerValueIsAlreadyQueued() throws Exception {
+        List<Integer> received = new ArrayList<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        RacingObservableValue observable = new RacingObservableValue();
+        observable.subscribe(value -> {
+            received.add(value);
+            if (received.size() == 2) {
+                done.complete(null);
+            }
+        }, FIRST_UPDATE);
+
+        observable.dispatchValue(2);
+
+        done.get(1, SECONDS);
+        assertThat(received).containsExactly(1, 2);
+    }
+
+    @Test
+    public void differentObservers_areServedInParallel() throws Exception {
+        CountDownLatch bothObserversBusy = new CountDownLatch(2);
+        CompletableFuture<Void> firstDone = new CompletableFuture<>();
+        CompletableFuture<Void> secondDone = new CompletableFuture<>();
+        Dispatcher<String> dispatcher = Observables.dispatcher();
+        dispatcher.subscribe(value -> {
+            bothObserversBusy.countDown();
+            if (await(bothObserversBusy)) {
+                firstDone.complete(null);
+            }
+        });
+        dispatcher.subscribe(value -> {
+            bothObserversBusy.countDown();
+            if (await(bothObserversBusy)) {
+                secondDone.complete(null);
+            }
+        });
+
+        dispatcher.dispatchValue("A");
+
+        firstDone.get(2, SECONDS);
+        secondDone.get(2, SECONDS);
+    }
+
+    @Test
+    public void unsubscribe_stopsDeliveryOfPendingUpdates() throws Exception {
+        CountDownLatch blockFirstDelivery = new CountDownLatch(1);
+        CompletableFuture<Void> firstDeliveryStarted = new CompletableFuture<>();
+        List<Integer> received = new ArrayList<>();
+        Dispatcher<Integer> dispatcher = Observables.dispatcher();
+        Subscription subscription = dispatcher.subscribe(value -> {
+            firstDeliveryStarted.complete(null);
+            await(blockFirstDelivery);
+            received.add(value);
+        });
+
+        dispatcher.dispatchValue(1);
+        firstDeliveryStarted.get(1, SECONDS);
+        dispatcher.dispatchValue(2);
+        subscription.unsubscribe();
+        blockFirstDelivery.countDown();
+
+        Thread.sleep(100);
+        assertThat(received).containsExactly(1);
+    }
+
+    @Test
+    public void backlogDropNewest_keepsOldestUpdates() throws Exception {
+        List<Integer> received = receivedWithBlockedObserver(OverflowPolicy.DROP_NEWEST);
+        assertThat(received).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    public void backlogDropOldest_keepsNewestUpdates() throws Exception {
+        List<Integer> received = receivedWithBlockedObserver(OverflowPolicy.DROP_OLDEST);
+        assertThat(received).containsExactly(0, 8, 9);
+    }
+
+    @Test
+    public void backlogDropOldest_neverDropsExceptions() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> firstDeliveryStarted = new CompletableFuture<>();
+        List<Object> received = new ArrayList<>();
+        Dispatcher<Integer> dispatcher = Observables.dispatcher();
+        DispatchingSubscription subscription = (DispatchingSubscription) dispatcher.subscribe(new Observer<Integer>() {
+            @Override
+            public void onValue(Integer value) {
+                firstDeliveryStarted.complete(null);
+                await(release);
+                received.add(value);
+            }
+
+            @Override
+            public void onException(Throwable exception) {
+                received.add(exception.getClass());
+            }
+        }, DispatchOptions.backlog(2, OverflowPolicy.DROP_OLDEST));
+
+        dispatcher.dispatchValue(0);
+        firstDeliveryStarted.get(1, SECONDS);
+        dispatcher.dispatchException(new IllegalStateException("TEST-EXCEPTION"));
+        for (int i = 1; i < 10; i++) {
+            dispatcher.dispatchValue(i);
+        }
+        assertThat(subscription.droppedUpdates()).isEqualTo(8L);
+        release.countDown();
+
+        Thread.sleep(100);
+        assertThat(received).containsExactly(0, IllegalStateException.class, 9);
+    }
+
+    @Test
+    public void backlogFail_deliversOverflowExceptionOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> firstDeliveryStarted = new CompletableFuture<>();
+        List<Object> received = new ArrayList<>();
+        Dispatcher<Integer> dispatcher = Observables.dispatcher();
+        DispatchingSubscription subscription = (DispatchingSubscription) dispatcher.subscribe(new Observer<Integer>() {
+            @Override
+            public void onValue(Integer value) {
+                firstDeliveryStarted.complete(null);
+                await(release);
+                received.add(value);
+            }
+
+            @Override
+            public void onException(Throwable exception) {
+                received.add(exception.getClass());
+            }
+        }, DispatchOptions.backlog(2, OverflowPolicy.FAIL));
+
+        dispatcher.dispatchValue(0);
+        firstDeliveryStarted.get(1, SECONDS);
+        for (int i = 1; i < 10; i++) {
+            dispatcher.dispatchValue(i);
+        }
+        release.countDown();
+
+        Thread.sleep(100);
+        assertThat(received).containsExactly(0, 1, 2, BacklogOverflowException.class);
+        assertThat(subscription.droppedUpdates()).isEqualTo(7L);
+    }
+
+    @Test
+    public void backlogBlockProducer_deliversAllUpdates() throws Exception {
+        List<Integer> received = new ArrayList<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Dispatcher<Integer> dispatcher = Observables.dispatcher();
+        DispatchingSubscription subscription = (DispatchingSubscription) dispatcher.subscribe(value -> {
+            assertThat(value).isNotNull();
+            received.add(value);
+            if (value == 999) {
+                done.complete(null);
+            }
+        }, DispatchOptions.backlog(4, OverflowPolicy.BLOCK_PRODUCER));
+
+        for (int i = 0; i < 1000; i++) {
+            dispatcher.dispatchValue(i);
+            assertThat(subscription.pendingUpdates()).isLessThanOrEqualTo(4);
+        }
+
+        done.get(5, SECONDS);
+        assertThat(received).hasSize(1000);
+        assertThat(subscription.droppedUpdates()).isEqualTo(0L);
+    }
+
+    @Test
+    public void backlogBlockProducer_parksTheProducerUntilThereIsRoom() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> firstDeliveryStarted = new CompletableFuture<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        List<Integer> received = new ArrayList<>();
+        Dispatcher<Integer> dispatcher = Observables.dispatcher();
+        dispatcher.subscribe(value -> {
+            firstDeliveryStarted.complete(null);
+            await(release);
+            received.add(value);
+            if (value == 3) {
+                done.complete(null);
+            }
+        }, DispatchOptions.backlog(2, OverflowPolicy.BLOCK_PRODUCER));
+        dispatcher.dispatchValue(0);
+        firstDeliveryStarted.get(1, SECONDS);
+        dispatcher.dispatchValue(1);
+        dispatcher.dispatchValue(2);
+
+        Thread producer = new Thread(() -> dispatcher.dispatchValue(3));
+        producer.start();
+        long deadline = System.nanoTime() + SECONDS.toNanos(1);
+        while (producer.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        /* parked without a timeout, i.e. not polling */
+        assertThat(producer.getState()).isEqualTo(Thread.State.WAITING);
+        release.countDown();
+
+        done.get(1, SECONDS);
+        producer.join(1000);
+        assertThat(received).containsExactly(0, 1, 2, 3);
+    }
+
+    @Test
+    public void backlogBlockProducer_unsubscribingReleasesTheProducer() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> firstDeliveryStarted = new CompletableFuture<>();
+        Dispatcher<Integer> dispatcher = Observables.dispatcher();
+        Subscription subscription = dispatcher.subscribe(value -> {
+            firstDeliveryStarted.complete(null);
+            await(release);
+        }, DispatchOptions.backlog(1, OverflowPolicy.BLOCK_PRODUCER));
+        dispatcher.dispatchValue(0);
+        firstDeliveryStarted.get(1, SECONDS);
+        dispatcher.dispatchValue(1);
+
+        CompletableFuture<Void> published = CompletableFuture.runAsync(() -> dispatcher.dispatchValue(2));
+        Thread.sleep(50);
+        assertThat(published.isDone()).isFalse();
+        subscription.unsubscribe();
+
+        published.get(1, SECONDS);
+        release.countDown();
+    }
+
+    @Test
+    public void conflate_deliversOnlyLatestPendingUpdate() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> firstDeliveryStarted = new CompletableFuture<>();
+        List<Integer> received = new ArrayList<>();
+        Property<Integer> property = Properties.property(0);
+        DispatchingSubscription subscription = (DispatchingSubscription) property.subscribe(value -> {
+            firstDeliveryStarted.complete(null);
+            await(release);
+            received.add(value);
+        }, SubscriptionOptions.CONFLATE);
+
+        property.set(1);
+        firstDeliveryStarted.get(1, SECONDS);
+        for (int i = 2; i < 100; i++) {
+            property.set(i);
+        }
+        assertThat(subscription.pendingUpdates()).isEqualTo(1);
+        release.countDown();
+
+        Thread.sleep(100);
+        assertThat(received).containsExactly(1, 99);
+        assertThat(subscription.droppedUpdates()).isEqualTo(97L);
+    }
+
+    @Test
+    public void conflate_neverDropsExceptions() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> firstDeliveryStarted = new CompletableFuture<>();
+        List<Object> received = new ArrayList<>();
+        Dispatcher<Integer> dispatcher = Observables.dispatcher();
+        dispatcher.subscribe(new Observer<Integer>() {
+            @Override
+            public void onValue(Integer value) {
+                firstDeliveryStarted.complete(null);
+                await(release);
+                received.add(value);
+            }
+
+            @Override
+            public void onException(Throwable exception) {
+                received.add(exception.getClass());
+            }
+        }, SubscriptionOptions.CONFLATE);
+
+        dispatcher.dispatchValue(0);
+        firstDeliveryStarted.get(1, SECONDS);
+        dispatcher.dispatchValue(1);
+        dispatcher.dispatchException(new IllegalStateException("TEST-EXCEPTION"));
+        dispatcher.dispatchValue(2);
+        dispatcher.dispatchValue(3);
+        release.countDown();
+
+        Thread.sleep(100);
+        assertThat(received).containsExactly(0, 1, IllegalStateException.class, 3);
+    }
+
+    @Test
+    public void synchronous_deliversOnPublishingThread() {
+        List<Thread> deliveryThreads = new ArrayList<>();
+        Dispatcher<String> dispatcher = Observables.dispatcher();
+        dispatcher.subscribe(value -> deliveryThreads.add(Thread.currentThread()), SubscriptionOptions.SYNCHRONOUS);
+
+        dispatcher.dispatchValue("A");
+
+        assertThat(deliveryThreads).containsExactly(Thread.currentThread());
+    }
+
+    @Test
+    public void synchronous_reentrantUpdatesAreQueued() {
+        List<String> events = new ArrayList<>();
+        Dispatcher<Integer> dispatcher = Observables.dispatcher(null, DispatchExecutors.synchronous());
+        dispatcher.subscribe(value -> {
+            events.add("start " + value);
+            if (value < 3) {
+                dispatcher.dispatchValue(value + 1);
+            }
+            events.add("end " + value);
+        });
+
+        dispatcher.dispatchValue(1);
+
+        assertThat(events).containsExactly("start 1", "end 1", "start 2", "end 2", "start 3", "end 3");
+    }
+
+    @Test
+    public void synchronous_derivedChainIsSynchronous() {
+        List<String> received = new ArrayList<>();
+        Property<Integer> property = Properties.property(1, DispatchExecutors.synchronous());
+        property.map(value -> value * 2).filter(value -> value > 2).map(String::valueOf).subscribe(received::add);
+
+        property.set(2);
+        property.set(3);
+
+        assertThat(received).containsExactly("4", "6");
+    }
+
+    @Test
+    public void synchronous_exceptionsAreNotPropagatedToPublisher() throws Exception {
+        CompletableFuture<Exception> exception = new CompletableFuture<>();
+        Observables.setUncaughtExceptionHandler(exception::complete);
+        try {
+            Dispatcher<String> dispatcher = Observables.dispatcher();
+            dispatcher.subscribe(value -> {
+                throw new IllegalStateException("observer failed");
+            }, SubscriptionOptions.SYNCHRONOUS);
+
+            dispatcher.dispatchValue("A");
+
+            assertThat(exception.get(1, SECONDS)).isInstanceOf(UpdateDeliveryException.class)
+                    .hasCauseInstanceOf(IllegalStateException.class);
+        } finally {
+            Observables.setUncaughtExceptionHandler(Throwable::printStackTrace);
+        }
+    }
+
+    @Test
+    public void observerThrowingError_keepsReceivingUpdates() throws Exception {
+        assertThat(receivedByObserverFailingOnFirstValue()).containsExactly(1, 2, 3);
+        assertThat(receivedByObserverFailingOnFirstValue(SubscriptionOptions.SYNCHRONOUS)).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    public void throwingInstrumentation_breaksNeitherPublishingNorDelivery() throws Exception {
+        Observables.setDispatchInstrumentation(new ThrowingInstrumentation());
+        try {
+            List<Integer> received = new ArrayList<>();
+            List<Integer> receivedSynchronously = new ArrayList<>();
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            Dispatcher<Integer> dispatcher = Observables.dispatcher();
+            Subscription subscription = dispatcher.subscribe(value -> {
+                received.add(value);
+                if (value == 3) {
+                    done.complete(null);
+                }
+            });
+            dispatcher.subscribe(receivedSynchronously::add, SubscriptionOptions.SYNCHRONOUS);
+
+            for (int i = 1; i <= 3; i++) {
+                dispatcher.dispatchValue(i);
+            }
+
+            done.get(1, SECONDS);
+            assertThat(received).containsExactly(1, 2, 3);
+            assertThat(receivedSynchronously).containsExactly(1, 2, 3);
+            subscription.unsubscribe();
+        } finally {
+            Observables.setDispatchInstrumentation(DispatchInstrumentation.NOOP);
+        }
+    }
+
+    @Test
+    public void onChange_skipsUpdatesNotChangingTheValue() {
+        List<String> allUpdates = new ArrayList<>();
+        List<String> changes = new ArrayList<>();
+        Property<String> property = Properties.property("A", DispatchExecutors.synchronous());
+        property.subscribe(allUpdates::add);
+        property.subscribe(changes::add, SubscriptionOptions.ON_CHANGE);
+
+        property.set("A");
+        property.set("B");
+        property.set("B");
+
+        assertThat(allUpdates).containsExactly("A", "B", "B");
+        assertThat(changes).containsExactly("B");
+    }
+
+    @Test
+    public void subscribingSameObserverTwice_replacesPreviousSubscription() {
+        List<String> received = new ArrayList<>();
+        Observer<String> observer = received::add;
+        Dispatcher<String> dispatcher = Observables.dispatcher(null, DispatchExecutors.synchronous());
+        dispatcher.subscribe(observer);
+        Subscription subscription = dispatcher.subscribe(observer);
+
+        dispatcher.dispatchValue("A");
+        subscription.unsubscribe();
+        dispatcher.dispatchValue("B");
+
+        assertThat(received).containsExactly("A");
+    }
+
+    @Test
+    public void addingAndRemovingSubscribers_keepsRemainingSubscribersNotified() {
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        List<String> third = new ArrayList<>();
+        Dispatcher<String> dispatcher = Observables.dispatcher(null, DispatchExecutors.synchronous());
+        Subscription firstSubscription = dispatcher.subscribe(first::add);
+        Subscription secondSubscription = dispatcher.subscribe(second::add);
+        dispatcher.dispatchValue("A");
+        firstSubscription.unsubscribe();
+        dispatcher.dispatchValue("B");
+        dispatcher.subscribe(third::add);
+        secondSubscription.unsubscribe();
+        dispatcher.dispatchValue("C");
+
+        assertThat(first).containsExactly("A");
+        assertThat(second).containsExactly("A", "B");
+        assertThat(third).containsExactly("C");
+    }
+
+    @Test
+    public void fanOut_deliversAllUpdatesInOrderToEverySubscriber() throws Exception {
+        int subscriberCount = 100;
+        int updateCount = 1_000;
+        Observables.setFanOutThreshold(10);
+        try {
+            Dispatcher<Integer> dispatcher = Observables.dispatcher();
+            List<List<Integer>> received = new ArrayList<>();
+            CountDownLatch done = new CountDownLatch(subscriberCount);
+            for (int i = 0; i < subscriberCount; i++) {
+                List<Integer> values = new ArrayList<>();
+                received.add(values);
+                dispatcher.subscribe(value -> {
+                    values.add(value);
+                    if (value == updateCount - 1) {
+                        done.countDown();
+                    }
+                });
+            }
+
+            for (int i = 0; i < updateCount; i++) {
+                dispatcher.dispatchValue(i);
+            }
+
+            assertThat(done.await(5, SECONDS)).isTrue();
+            for (List<Integer> values : received) {
+                assertThat(values).hasSize(updateCount);
+                for (int i = 0; i < updateCount; i++) {
+                    assertThat(values.get(i)).isEqualTo(i);
+                }
+            }
+        } finally {
+            Observables.setFanOutThreshold(512);
+        }
+    }
+
+    @Test
+    public void fanOut_backlogIsAppliedByThePublishingThread() throws Exception {
+        Observables.setFanOutThreshold(1);
+        try {
+            /* the pending and dropped updates are asserted right after publishing */
+            List<Integer> received = receivedWithBlockedObserver(OverflowPolicy.DROP_NEWEST);
+            assertThat(received).containsExactly(0, 1, 2);
+        } finally {
+            Observables.setFanOutThreshold(512);
+        }
+    }
+
+    @Test
+    public void fanOut_synchronousSubscribersStayOnPublishingThread() {
+        Observables.setFanOutThreshold(2);
+        try {
+            List<Thread> deliveryThreads = new ArrayList<>();
+            Dispatcher<String> dispatcher = Observables.dispatcher();
+            dispatcher.subscribe(value -> {
+                /* served by a lane */
+            });
+            dispatcher.subscribe(value -> deliveryThreads.add(Thread.currentThread()), SubscriptionOptions.SYNCHRONOUS);
+
+            dispatcher.dispatchValue("A");
+
+            assertThat(deliveryThreads).containsExactly(Thread.currentThread());
+        } finally {
+            Observables.setFanOutThreshold(512);
+        }
+    }
+
+    @Test
+    public void slowObserver_isReportedAndQuarantined() throws Exception {
+        CompletableFuture<Exception> exception = new CompletableFuture<>();
+        ExecutorService quarantine = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "quarantine"));
+        Observables.setUncaughtExceptionHandler(exception::complete);
+        Observables.setSlowObserverBudget(Duration.ofMillis(20));
+        Observables.setSlowObserverQuarantine(quarantine);
+        try {
+            List<String> deliveryThreads = new ArrayList<>();
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            Dispatcher<String> dispatcher = Observables.dispatcher();
+            Observer<String> observer = value -> {
+                deliveryThreads.add(Thread.currentThread().getName());
+                if ("A".equals(value)) {
+                    sleep(100);
+                } else {
+                    done.complete(null);
+                }
+            };
+            DispatchingSubscription subscription = (DispatchingSubscription) dispatcher.subscribe(observer);
+
+            dispatcher.dispatchValue("A");
+            dispatcher.dispatchValue("B");
+
+            done.get(1, SECONDS);
+            SlowObserverException slowObserver = (SlowObserverException) exception.get(1, SECONDS);
+            assertThat(slowObserver.getObserver()).isSameAs(observer);
+            assertThat(slowObserver.getDuration().toMillis()).isGreaterThanOrEqualTo(20L);
+            assertThat(slowObserver.isQuarantined()).isTrue();
+            assertThat(subscription.isQuarantined()).isTrue();
+            assertThat(deliveryThreads.get(1)).isEqualTo("quarantine");
+        } finally {
+            Observables.setSlowObserverBudget(Duration.ZERO);
+            Observables.setSlowObserverQuarantine(null);
+            Observables.setUncaughtExceptionHandler(Throwable::printStackTrace);
+            quarantine.shutdown();
+        }
+    }
+
+    private static List<Integer> receivedWithBlockedObserver(OverflowPolicy policy) throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> firstDeliveryStarted = new CompletableFuture<>();
+        List<Integer> received = new ArrayList<>();
+        Dispatcher<Integer> dispatcher = Observables.dispatcher();
+        DispatchingSubscription subscription = (DispatchingSubscription) dispatcher.subscribe(value -> {
+            firstDeliveryStarted.complete(null);
+            await(release);
+            received.add(value);
+        }, DispatchOptions.backlog(2, policy));
+
+        dispatcher.dispatchValue(0);
+        firstDeliveryStarted.get(1, SECONDS);
+        for (int i = 1; i < 10; i++) {
+            dispatcher.dispatchValue(i);
+        }
+        assertThat(subscription.pendingUpdates()).isEqualTo(2);
+        assertThat(subscription.droppedUpdates()).isEqualTo(7L);
+        release.countDown();
+
+        Thread.sleep(100);
+        return received;
+    }
+
+    private static List<Integer> receivedByObserverFailingOnFirstValue(SubscriptionOption... options)
+            throws Exception {
+        CompletableFuture<Exception> exception = new CompletableFuture<>();
+        Observables.setUncaughtExceptionHandler(exception::complete);
+        try {
+            List<Integer> received = new ArrayList<>();
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            Dispatcher<Integer> dispatcher = Observables.dispatcher();
+            dispatcher.subscribe(value -> {
+                received.add(value);
+                if (value == 1) {
+                    throw new AssertionError("TEST-ERROR in observer");
+                }
+                if (value == 3) {
+                    done.complete(null);
+                }
+            }, options);
+
+            for (int i = 1; i <= 3; i++) {
+                dispatcher.dispatchValue(i);
+            }
+
+            done.get(1, SECONDS);
+            assertThat(exception.get(1, SECONDS)).isInstanceOf(UpdateDeliveryException.class)
+                    .hasCauseInstanceOf(AssertionError.class);
+            return received;
+        } finally {
+            Observables.setUncaughtExceptionHandler(Throwable::printStackTrace);
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(1, SECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class ThrowingInstrumentation implements DispatchInstrumentation {
+        @Override
+        public void subscribed(Observable<?> observable, int subscribers) {
+            throw new AssertionError("TEST-ERROR in subscribed");
+        }
+
+        @Override
+        public void unsubscribed(Observable<?> observable, int subscribers) {
+            throw new AssertionError("TEST-ERROR in unsubscribed");
+        }
+
+        @Override
+        public void dispatched(Observable<?> observable, int updates) {
+            throw new IllegalStateException("TEST-EXCEPTION in dispatched");
+        }
+
+        @Override
+        public void deliveryStarted(Observable<?> observable, long queueWaitNanos) {
+            throw new AssertionError("TEST-ERROR in deliveryStarted");
+        }
+
+        @Override
+        public void delivered(Observable<?> observable, long executionNanos) {
+            throw new AssertionError("TEST-ERROR in delivered");
+        }
+    }
+
+    /* dispatches 1, and sets 2 before dispatching it, while the first update of a new subscriber is read */
+    private static class RacingObservableValue extends DispatchingObservableValue<Integer> {
+        private boolean raced = false;
+
+        private RacingObservableValue() {
+            super(0);
+        }
+
+        @Override
+        Integer firstUpdateValue() {
+            if (!raced) {
+                raced = true;
+                dispatchValue(1);
+                updateWithoutDispatching(2);
+            }
+            return super.firstUpdateValue();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.ossgang.commons.observables;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.ossgang.commons.properties.Properties;
+import org.ossgang.commons.properties.Property;
+
+public class ObservableGraphTest {
+
+    @Test
+    public void graph_containsUpstreamsAndDownstreams() {
+        Property<Integer> first = Properties.property(1);
+        Property<Integer> second = Properties.property(2);
+        ObservableValue<Integer> doubled = first.map(value -> value * 2);
+        Map<String, Observable<Integer>> sources = new LinkedHashMap<>();
+        sources.put("doubled", doubled);
+        sources.put("second", second);
+        ObservableValue<Map<String, Integer>> combined = Observables.combineLatest(sources);
+        combined.subscribe(value -> {
+        });
+
+        ObservableGraph graph = ObservableGraph.of(first);
+
+        assertThat(graph.observables()).containsExactlyInAnyOrder(first, second, doubled, combined);
+        assertThat(graph.upstreams(combined).get("doubled")).isSameAs(doubled);
+        assertThat(graph.upstreams(combined).get("second")).isSameAs(second);
+        assertThat(graph.upstreams(doubled).values()).containsExactly(first);
+    }
+
+    @Test
+    public void dumps_listObservablesAndEdges() {
+        Property<Integer> source = Properties.property(1);
+        ObservableValue<Integer> doubled = source.map(value -> value * 2);
+        doubled.subscribe(value -> {
+        });
+
+        ObservableGraph graph = ObservableGraph.of(doubled);
+
+        assertThat(graph.toText()).contains("n0 DerivedObservableValue [subscribers=1]\n    <- n1\n");
+        assertThat(graph.toDot()).startsWith("digraph observables {\n").contains("    n1 -> n0;\n");
+    }
+}
@@ -24,6 +24,7 @@ import java.time.Duration;
 
 import org.junit.Test;
 import org.ossgang.commons.monads.Maybe;
+import org.ossgang.commons.observables.operators.DebounceOptions;
 import org.ossgang.commons.observables.testing.TestObserver;
 
 public class ObservableValueDebounceTest {
@@ -72,4 +73,92 @@ public class ObservableValueDebounceTest {
         assertThat(observer.receivedExceptions()).containsExactly(exceptionA, exceptionB, exceptionC);
     }
 
+    @Test
+    public void testDebounce_burstOfUpdates_dispatchesOnlyTheLastOne() {
+        Dispatcher<Integer> dispatcher = Observables.dispatcher(null, DispatchExecutors.synchronous());
+
+        TestObserver<Integer> observer = new TestObserver<>();
+        Observables.debounce(dispatcher, Duration.ofMillis(200)).subscribe(observer);
+
+        for (int i = 0; i < 10_000; i++) {
+            dispatcher.dispatchValue(i);
+        }
+
+        observer.awaitForValueCountToBe(1, Duration.ofSeconds(3));
+        Maybe.attempt(() -> Thread.sleep(300));
+        assertThat(observer.receivedValues()).containsExactly(9_999);
+    }
+
+    @Test
+    public void testDebounce_leading_dispatchesFirstItemOfBurst() {
+        Dispatcher<Object> dispatcher = Observables.dispatcher();
+
+        TestObserver<Object> observer = new TestObserver<>();
+        Observables.debounce(dispatcher, Duration.ofMillis(300), DebounceOptions.leading()).subscribe(observer);
+
+        dispatcher.dispatchValue("a");
+        dispatcher.dispatchValue("b");
+        dispatcher.dispatchValue("c");
+        observer.awaitForValueCountToBe(1, Duration.ofSeconds(1));
+        Maybe.attempt(() -> Thread.sleep(500));
+        dispatcher.dispatchValue("d");
+
+        observer.awaitForValueCountToBe(2, Duration.ofSeconds(1));
+        assertThat(observer.receivedValues()).containsExactly("a", "d");
+    }
+
+    @Test
+    public void testDebounce_leadingAndTrailing_dispatchesFirstAndLastItemOfBurst() {
+        Dispatcher<Object> dispatcher = Observables.dispatcher();
+
+        TestObserver<Object> observer = new TestObserver<>();
+        Observables.debounce(dispatcher, Duration.ofMillis(300), DebounceOptions.leading(), DebounceOptions.trailing())
+                .subscribe(observer);
+
+        dispatcher.dispatchValue("a");
+        dispatcher.dispatchValue("b");
+        dispatcher.dispatchValue("c");
+
+        observer.awaitForValueCountToBe(2, Duration.ofSeconds(1));
+        Maybe.attempt(() -> Thread.sleep(500));
+        assertThat(observer.receivedValues()).containsExactly("a", "c");
+    }
+
+    @Test
+    public void testDebounce_maxWait_dispatchesDuringContinuousUpdates() {
+        Dispatcher<Integer> dispatcher = Observables.dispatcher();
+
+        TestObserver<Integer> observer = new TestObserver<>();
+        Observables.debounce(dispatcher, Duration.ofMillis(100), DebounceOptions.maxWait(Duration.ofMillis(200)))
+                .subscribe(observer);
+
+        long end = System.currentTimeMillis() + 1000;
+        int i = 0;
+        while (System.currentTimeMillis() < end) {
+            dispatcher.dispatchValue(i++);
+            Maybe.attempt(() -> Thread.sleep(10));
+        }
+
+        assertThat(observer.receivedValues().size()).isGreaterThanOrEqualTo(3);
+        Maybe.attempt(() -> Thread.sleep(300));
+        assertThat(observer.receivedValues()).endsWith(i - 1);
+    }
+
+    @Test
+    public void testDebounce_zeroPeriod_dispatchesTheLatestItem() {
+        Dispatcher<Object> dispatcher = Observables.dispatcher();
+
+        TestObserver<Object> observer = new TestObserver<>();
+        Observables.debounce(dispatcher, Duration.ZERO).subscribe(observer);
+
+        dispatcher.dispatchValue("a");
+
+        observer.awaitForValueCountToBe(1, Duration.ofSeconds(1));
+        assertThat(observer.receivedValues()).containsExactly("a");
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testDebounce_nullPeriod_isRejected() {
+        Observables.debounce(Observables.dispatcher(), null);
+    }
 }
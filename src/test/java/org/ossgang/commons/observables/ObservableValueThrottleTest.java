@@ -0,0 +1,108 @@
+package org.ossgang.commons.observables;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.Test;
+import org.ossgang.commons.monads.Maybe;
+import org.ossgang.commons.observables.testing.TestObserver;
+import org.ossgang.commons.properties.Properties;
+import org.ossgang.commons.properties.Property;
+
+public class ObservableValueThrottleTest {
+
+    @Test
+    public void throttleFirst_dispatchesFirstItemOfEachWindow() {
+        Dispatcher<Object> dispatcher = Observables.dispatcher();
+
+        TestObserver<Object> observer = new TestObserver<>();
+        Observables.throttleFirst(dispatcher, Duration.ofMillis(300)).subscribe(observer);
+
+        dispatcher.dispatchValue("a");
+        dispatcher.dispatchValue("b");
+        dispatcher.dispatchValue("c");
+        observer.awaitForValueCountToBe(1, Duration.ofSeconds(1));
+        Maybe.attempt(() -> Thread.sleep(400));
+        dispatcher.dispatchValue("d");
+        dispatcher.dispatchValue("e");
+
+        observer.awaitForValueCountToBe(2, Duration.ofSeconds(1));
+        Maybe.attempt(() -> Thread.sleep(100));
+        assertThat(observer.receivedValues()).containsExactly("a", "d");
+    }
+
+    @Test
+    public void throttleLast_dispatchesLastItemOfWindow() {
+        Dispatcher<Object> dispatcher = Observables.dispatcher();
+
+        TestObserver<Object> observer = new TestObserver<>();
+        Observables.throttleLast(dispatcher, Duration.ofMillis(200)).subscribe(observer);
+
+        dispatcher.dispatchValue("a");
+        dispatcher.dispatchValue("b");
+        dispatcher.dispatchValue("c");
+
+        observer.awaitForValueCountToBe(1, Duration.ofSeconds(1));
+        Maybe.attempt(() -> Thread.sleep(300));
+        assertThat(observer.receivedValues()).containsExactly("c");
+    }
+
+    @Test
+    public void sample_boundsTheRateOfAContinuousSource() {
+        Dispatcher<Integer> dispatcher = Observables.dispatcher();
+
+        TestObserver<Integer> observer = new TestObserver<>();
+        Observables.sample(dispatcher, Duration.ofMillis(100)).subscribe(observer);
+
+        long end = System.currentTimeMillis() + 1000;
+        int i = 0;
+        while (System.currentTimeMillis() < end) {
+            dispatcher.dispatchValue(i++);
+            Maybe.attempt(() -> Thread.sleep(1));
+        }
+        Maybe.attempt(() -> Thread.sleep(200));
+
+        assertThat(observer.receivedValues().size()).isBetween(5, 12);
+        assertThat(observer.receivedValues()).endsWith(i - 1);
+    }
+
+    @Test
+    public void sampleWithTrigger_dispatchesLatestItemOnTrigger() {
+        Dispatcher<Object> dispatcher = Observables.dispatcher();
+        Dispatcher<Object> trigger = Observables.dispatcher();
+
+        TestObserver<Object> observer = new TestObserver<>();
+        Observables.sample(dispatcher, trigger).subscribe(observer);
+
+        dispatcher.dispatchValue("a");
+        dispatcher.dispatchValue("b");
+        Maybe.attempt(() -> Thread.sleep(50));
+        trigger.dispatchValue(1);
+        observer.awaitForValueCountToBe(1, Duration.ofSeconds(1));
+        trigger.dispatchValue(2);
+        Maybe.attempt(() -> Thread.sleep(50));
+        dispatcher.dispatchValue("c");
+        Maybe.attempt(() -> Thread.sleep(50));
+        trigger.dispatchValue(3);
+
+        observer.awaitForValueCountToBe(2, Duration.ofSeconds(1));
+        assertThat(observer.receivedValues()).containsExactly("b", "c");
+    }
+
+    @Test
+    public void sampleWithObservableValueTrigger_doesNotSampleOnSubscription() {
+        Property<String> source = Properties.property("a");
+        Property<Integer> trigger = Properties.property(0);
+
+        TestObserver<String> observer = new TestObserver<>();
+        Observables.sample(source, trigger).subscribe(observer);
+
+        Maybe.attempt(() -> Thread.sleep(100));
+        assertThat(observer.receivedValues()).isEmpty();
+
+        trigger.set(1);
+        observer.awaitForValueCountToBe(1, Duration.ofSeconds(1));
+        assertThat(observer.receivedValues()).containsExactly("a");
+    }
+}
@@ -1,5 +1,7 @@
 package org.ossgang.commons.observables;
 
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.data.Offset.offset;
@@ -31,6 +33,49 @@ public class PeriodicObservableValueTest {
 
     }
 
+    @Test
+    public void periodicTask_runsOnlyWhileSubscribed() {
+        PeriodicObservableValue source = (PeriodicObservableValue) Observables.periodicEvery(100, MILLISECONDS);
+        assertThat(source.isRunning()).isFalse();
+
+        TestObserver<Instant> obs = new TestObserver<>();
+        Subscription first = source.subscribe(obs);
+        Subscription second = source.subscribe(new TestObserver<>());
+        assertThat(source.isRunning()).isTrue();
+        obs.awaitForValueCountToBe(2);
+
+        first.unsubscribe();
+        assertThat(source.isRunning()).isTrue();
+        second.unsubscribe();
+        assertThat(source.isRunning()).isFalse();
+    }
+
+    @Test
+    public void samePeriod_isShared() {
+        ObservableValue<Instant> source = Observables.periodicEvery(250, MILLISECONDS);
+
+        assertThat(Observables.periodicEvery(250_000, MICROSECONDS)).isSameAs(source);
+        assertThat(Observables.periodicEvery(300, MILLISECONDS)).isNotSameAs(source);
+    }
+
+    @Test
+    public void value_isTheCurrentTime_evenIfTheInstanceIsShared() throws InterruptedException {
+        ObservableValue<Instant> source = Observables.periodicEvery(7, SECONDS);
+        Thread.sleep(50);
+
+        Instant beforeGet = Instant.now();
+        assertThat(source.get().isBefore(beforeGet)).isFalse();
+
+        Thread.sleep(50);
+        Instant beforeSubscribe = Instant.now();
+        TestObserver<Instant> obs = new TestObserver<>();
+        Subscription subscription = source.subscribe(obs, SubscriptionOptions.FIRST_UPDATE);
+        obs.awaitForValueCountToBe(1);
+        subscription.unsubscribe();
+
+        assertThat(obs.receivedValues().get(0).isBefore(beforeSubscribe)).isFalse();
+    }
+
     private static List<Duration> diffs(List<Instant> values) {
         if (values.size() < 2) {
             return Collections.emptyList();
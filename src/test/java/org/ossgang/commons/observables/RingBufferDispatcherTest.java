@@ -0,0 +1,188 @@
+package org.ossgang.commons.observables;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.ossgang.commons.observables.RingBufferDispatcher.WaitStrategy;
+
+public class RingBufferDispatcherTest {
+
+    private static final int UPDATE_COUNT = 100_000;
+
+    @Test
+    public void singlePublisher_updatesAreDeliveredInOrder() throws Exception {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            try (RingBufferDispatcher<Integer> dispatcher = Observables.ringBufferDispatcher(64, waitStrategy)) {
+                List<Integer> received = new ArrayList<>();
+                CompletableFuture<Void> done = new CompletableFuture<>();
+                dispatcher.subscribe(value -> {
+                    received.add(value);
+                    if (value == UPDATE_COUNT - 1) {
+                        done.complete(null);
+                    }
+                });
+
+                for (int i = 0; i < UPDATE_COUNT; i++) {
+                    dispatcher.dispatchValue(i);
+                }
+
+                done.get(10, SECONDS);
+                assertThat(received).hasSize(UPDATE_COUNT);
+                for (int i = 0; i < UPDATE_COUNT; i++) {
+                    assertThat(received.get(i)).isEqualTo(i);
+                }
+                assertThat(dispatcher.get()).isEqualTo(UPDATE_COUNT - 1);
+            }
+        }
+    }
+
+    @Test
+    public void multiplePublishers_allUpdatesAreDelivered() throws Exception {
+        int publishers = 4;
+        try (RingBufferDispatcher<Integer> dispatcher = Observables.ringBufferDispatcher(16, WaitStrategy.YIELD)) {
+            AtomicInteger received = new AtomicInteger(0);
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            dispatcher.subscribe(value -> {
+                if (received.incrementAndGet() == publishers * UPDATE_COUNT) {
+                    done.complete(null);
+                }
+            });
+
+            CountDownLatch start = new CountDownLatch(1);
+            for (int p = 0; p < publishers; p++) {
+                new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < UPDATE_COUNT; i++) {
+                        dispatcher.dispatchValue(i);
+                    }
+                }).start();
+            }
+            start.countDown();
+
+            done.get(10, SECONDS);
+            assertThat(received.get()).isEqualTo(publishers * UPDATE_COUNT);
+        }
+    }
+
+    @Test
+    public void exceptions_areDeliveredInOrder() throws Exception {
+        RuntimeException exception = new RuntimeException("Exception");
+        try (RingBufferDispatcher<String> dispatcher = Observables.ringBufferDispatcher(8, WaitStrategy.PARK)) {
+            List<Object> received = new ArrayList<>();
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            dispatcher.subscribe(new Observer<String>() {
+                @Override
+                public void onValue(String value) {
+                    received.add(value);
+                    if ("B".equals(value)) {
+                        done.complete(null);
+                    }
+                }
+
+                @Override
+                public void onException(Throwable e) {
+                    received.add(e);
+                }
+            });
+
+            dispatcher.dispatchValue("A");
+            dispatcher.dispatchException(exception);
+            dispatcher.dispatchValue("B");
+
+            done.get(1, SECONDS);
+            assertThat(received).containsExactly("A", exception, "B");
+        }
+    }
+
+    @Test
+    public void closedDispatcher_rejectsUpdates() {
+        RingBufferDispatcher<String> dispatcher = Observables.ringBufferDispatcher(8, WaitStrategy.PARK);
+        dispatcher.close();
+
+        assertThatThrownBy(() -> dispatcher.dispatchValue("A")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void closeWhilePublishing_deliversEveryAcceptedUpdate() throws Exception {
+        for (int run = 0; run < 50; run++) {
+            RingBufferDispatcher<Integer> dispatcher = Observables.ringBufferDispatcher(8, WaitStrategy.YIELD);
+            AtomicInteger accepted = new AtomicInteger(0);
+            AtomicInteger received = new AtomicInteger(0);
+            dispatcher.subscribe(value -> received.incrementAndGet());
+
+            List<Thread> publishers = new ArrayList<>();
+            for (int p = 0; p < 4; p++) {
+                Thread publisher = new Thread(() -> {
+                    try {
+                        while (true) {
+                            dispatcher.dispatchValue(1);
+                            accepted.incrementAndGet();
+                        }
+                    } catch (IllegalStateException e) {
+                        /* closed */
+                    }
+                });
+                publishers.add(publisher);
+                publisher.start();
+            }
+            Thread.sleep(2);
+            dispatcher.close();
+            for (Thread publisher : publishers) {
+                publisher.join(1000);
+            }
+
+            long deadline = System.nanoTime() + SECONDS.toNanos(1);
+            while (received.get() < accepted.get() && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(received.get()).isEqualTo(accepted.get());
+            assertThat(dispatcher.pendingUpdates()).isEqualTo(0L);
+        }
+    }
+
+    @Test
+    public void observerThrowingError_doesNotStopTheConsumer() throws Exception {
+        Observables.setUncaughtExceptionHandler(exception -> {
+            /* expected */
+        });
+        try (RingBufferDispatcher<Integer> dispatcher = Observables.ringBufferDispatcher(2, WaitStrategy.PARK)) {
+            List<Integer> received = new ArrayList<>();
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            dispatcher.subscribe(value -> {
+                received.add(value);
+                if (value == 1) {
+                    throw new AssertionError("TEST-ERROR in observer");
+                }
+                if (value == 10) {
+                    done.complete(null);
+                }
+            });
+
+            for (int i = 1; i <= 10; i++) {
+                dispatcher.dispatchValue(i);
+            }
+
+            done.get(1, SECONDS);
+            assertThat(received).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        } finally {
+            Observables.setUncaughtExceptionHandler(Throwable::printStackTrace);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityNotPowerOfTwo_isRejected() {
+        Observables.ringBufferDispatcher(10, WaitStrategy.PARK);
+    }
+}
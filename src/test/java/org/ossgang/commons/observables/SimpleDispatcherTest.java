@@ -4,7 +4,12 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.ossgang.commons.observables.Observers.forExceptions;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.ossgang.commons.monads.Maybe;
@@ -61,4 +66,39 @@ public class SimpleDispatcherTest {
         assertThat(sink.get()).isEqualTo(ANY_VALUE);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void dispatchValues_deliversAllValuesInOrderWithinOneTask() throws Exception {
+        AtomicInteger tasks = new AtomicInteger(0);
+        Executor countingExecutor = task -> {
+            tasks.incrementAndGet();
+            DispatchExecutors.defaultPool().execute(task);
+        };
+        List<String> received = new ArrayList<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Dispatcher<String> sink = Observables.dispatcher("A", countingExecutor);
+        sink.subscribe(value -> {
+            received.add(value);
+            if ("D".equals(value)) {
+                done.complete(null);
+            }
+        });
+
+        sink.dispatchValues(Arrays.asList("A", "B", "C", "D"));
+
+        done.get(1, SECONDS);
+        assertThat(received).containsExactly("A", "B", "C", "D");
+        assertThat(tasks.get()).isEqualTo(1);
+        assertThat(sink.get()).isEqualTo("D");
+    }
+
+    @Test
+    public void dispatchValues_appliesOnChangePerTransition() {
+        List<String> changes = new ArrayList<>();
+        Dispatcher<String> sink = Observables.dispatcher("A", DispatchExecutors.synchronous());
+        sink.subscribe(changes::add, SubscriptionOptions.ON_CHANGE);
+
+        sink.dispatchValues(Arrays.asList("A", "B", "B", "C", "B"));
+
+        assertThat(changes).containsExactly("B", "C", "B");
+    }
+}
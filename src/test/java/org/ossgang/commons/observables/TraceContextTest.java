@@ -0,0 +1,76 @@
+package org.ossgang.commons.observables;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.After;
+import org.junit.Test;
+import org.ossgang.commons.properties.Properties;
+import org.ossgang.commons.properties.Property;
+
+public class TraceContextTest {
+
+    @After
+    public void tearDown() {
+        Observables.setTracing(false);
+    }
+
+    @Test
+    public void traceContext_isPropagatedThroughOperatorChain() throws Exception {
+        Observables.setTracing(true);
+        Property<Integer> source = Properties.property(0);
+        Property<Integer> other = Properties.property(100);
+        ObservableValue<Integer> combined = Observables.combineLatest(source.map(value -> value + 1), other,
+                Integer::sum);
+        CompletableFuture<TraceContext> atSource = new CompletableFuture<>();
+        CompletableFuture<TraceContext> atSink = new CompletableFuture<>();
+        source.subscribe(value -> {
+            if (value == 5) {
+                atSource.complete(TraceContext.current().orElse(null));
+            }
+        });
+        combined.subscribe(value -> {
+            if (value == 106) {
+                atSink.complete(TraceContext.current().orElse(null));
+            }
+        });
+
+        source.set(5);
+
+        TraceContext sourceContext = atSource.get(1, SECONDS);
+        TraceContext sinkContext = atSink.get(1, SECONDS);
+        assertThat(sourceContext).isNotNull();
+        assertThat(sinkContext).isSameAs(sourceContext);
+        assertThat(sinkContext.age().isNegative()).isFalse();
+    }
+
+    @Test
+    public void independentDispatches_getDifferentSequenceIds() throws Exception {
+        Observables.setTracing(true);
+        Dispatcher<String> dispatcher = Observables.dispatcher(null, DispatchExecutors.synchronous());
+        CompletableFuture<TraceContext> first = new CompletableFuture<>();
+        CompletableFuture<TraceContext> second = new CompletableFuture<>();
+        dispatcher.subscribe(value -> ("A".equals(value) ? first : second)
+                .complete(TraceContext.current().orElse(null)));
+
+        dispatcher.dispatchValue("A");
+        dispatcher.dispatchValue("B");
+
+        assertThat(second.get(1, SECONDS).sequenceId()).isGreaterThan(first.get(1, SECONDS).sequenceId());
+        assertThat(TraceContext.current().isPresent()).isFalse();
+    }
+
+    @Test
+    public void tracingDisabled_noTraceContext() throws Exception {
+        Dispatcher<String> dispatcher = Observables.dispatcher(null, DispatchExecutors.synchronous());
+        CompletableFuture<Optional<TraceContext>> context = new CompletableFuture<>();
+        dispatcher.subscribe(value -> context.complete(TraceContext.current()));
+
+        dispatcher.dispatchValue("A");
+
+        assertThat(context.get(1, SECONDS).isPresent()).isFalse();
+    }
+}
@@ -0,0 +1,50 @@
+package org.ossgang.commons.observables.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.ossgang.commons.observables.DispatchExecutors;
+import org.ossgang.commons.observables.Dispatcher;
+import org.ossgang.commons.observables.Observables;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class ObservableEventsTest {
+
+    @Test
+    public void dispatchAndDelivery_areRecorded() throws Exception {
+        Assume.assumeTrue(ObservableEvents.isAvailable());
+        Path file = Files.createTempFile("observables", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.ossgang.commons.observables.Dispatch");
+            recording.enable("org.ossgang.commons.observables.Delivery");
+            recording.start();
+            assertThat(ObservableEvents.isRecording()).isTrue();
+
+            Dispatcher<String> dispatcher = Observables.dispatcher(null, DispatchExecutors.synchronous());
+            dispatcher.subscribe(value -> {
+            });
+            dispatcher.dispatchValue("A");
+
+            recording.stop();
+            assertThat(ObservableEvents.isRecording()).isFalse();
+            recording.dump(file);
+            List<String> events = RecordingFile.readAllEvents(file).stream() //
+                    .map(RecordedEvent::getEventType) //
+                    .map(type -> type.getName()) //
+                    .collect(Collectors.toList());
+            assertThat(events).contains("org.ossgang.commons.observables.Dispatch",
+                    "org.ossgang.commons.observables.Delivery");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.ossgang.commons.observables.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ossgang.commons.observables.DispatchExecutors;
+import org.ossgang.commons.observables.DispatchInstrumentation;
+import org.ossgang.commons.observables.Dispatcher;
+import org.ossgang.commons.observables.Observables;
+import org.ossgang.commons.observables.Subscription;
+
+public class DispatchMetricsTest {
+
+    private DispatchMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new DispatchMetrics();
+        Observables.setDispatchInstrumentation(metrics);
+    }
+
+    @After
+    public void tearDown() {
+        Observables.setDispatchInstrumentation(DispatchInstrumentation.NOOP);
+    }
+
+    @Test
+    public void updatesAndDeliveries_areCountedPerObservable() {
+        Dispatcher<String> dispatcher = Observables.dispatcher(null, DispatchExecutors.synchronous());
+        dispatcher.subscribe(value -> {
+        });
+        dispatcher.subscribe(value -> {
+        });
+
+        dispatcher.dispatchValue("A");
+        dispatcher.dispatchValue("B");
+
+        ObservableMetrics observableMetrics = metrics.perObservable().get(dispatcher);
+        assertThat(observableMetrics.subscribers()).isEqualTo(2);
+        assertThat(observableMetrics.dispatchedUpdates()).isEqualTo(2L);
+        assertThat(observableMetrics.deliveries()).isEqualTo(4L);
+        assertThat(observableMetrics.execution().count()).isEqualTo(4L);
+        assertThat(metrics.total().dispatchedUpdates()).isEqualTo(2L);
+    }
+
+    @Test
+    public void unsubscribingLastObserver_discardsObservableMetrics() {
+        Dispatcher<String> dispatcher = Observables.dispatcher(null, DispatchExecutors.synchronous());
+        Subscription first = dispatcher.subscribe(value -> {
+        });
+        Subscription second = dispatcher.subscribe(value -> {
+        });
+
+        first.unsubscribe();
+        assertThat(metrics.perObservable().get(dispatcher).subscribers()).isEqualTo(1);
+        second.unsubscribe();
+        assertThat(metrics.perObservable().containsKey(dispatcher)).isFalse();
+    }
+
+    @Test
+    public void hottest_returnsObservablesWithMostUpdatesFirst() {
+        Dispatcher<String> cold = Observables.dispatcher(null, DispatchExecutors.synchronous());
+        Dispatcher<String> hot = Observables.dispatcher(null, DispatchExecutors.synchronous());
+        cold.subscribe(value -> {
+        });
+        hot.subscribe(value -> {
+        });
+
+        cold.dispatchValue("A");
+        for (int i = 0; i < 10; i++) {
+            hot.dispatchValue("B");
+        }
+
+        assertThat(metrics.hottest(1)).hasSize(1);
+        assertThat(metrics.hottest(1).get(0).getKey()).isSameAs(hot);
+    }
+
+    @Test
+    public void histogram_approximatesPercentilesWithinFactorTwo() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        assertThat(histogram.count()).isEqualTo(100L);
+        assertThat(histogram.mean()).isEqualTo(Duration.ofNanos(50_500));
+        long median = histogram.percentile(50).toNanos();
+        assertThat(median).isBetween(50_000L, 100_000L);
+        long max = histogram.percentile(100).toNanos();
+        assertThat(max).isBetween(100_000L, 200_000L);
+    }
+}
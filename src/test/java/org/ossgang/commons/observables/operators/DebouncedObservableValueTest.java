@@ -0,0 +1,36 @@
+package org.ossgang.commons.observables.operators;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.Test;
+import org.ossgang.commons.monads.Maybe;
+import org.ossgang.commons.observables.DispatchExecutors;
+import org.ossgang.commons.observables.Dispatcher;
+import org.ossgang.commons.observables.Observables;
+import org.ossgang.commons.observables.testing.TestObserver;
+
+public class DebouncedObservableValueTest {
+
+    @Test
+    public void burstOfUpdates_shouldKeepASingleTimerArmedUntilItsEnd() {
+        /* synchronous, so that all updates are applied when dispatchValue() returns */
+        Dispatcher<Integer> dispatcher = Observables.dispatcher(null, DispatchExecutors.synchronous());
+        DebouncedObservableValue<Integer> debounced = new DebouncedObservableValue<>(dispatcher, Duration.ofMillis(200));
+        TestObserver<Integer> observer = new TestObserver<>();
+        debounced.subscribe(observer);
+
+        assertThat(debounced.isTimerArmed()).isFalse();
+        for (int i = 0; i < 10_000; i++) {
+            dispatcher.dispatchValue(i);
+            assertThat(debounced.isTimerArmed()).isTrue();
+        }
+
+        observer.awaitForValueCountToBe(1, Duration.ofSeconds(3));
+        assertThat(observer.receivedValues()).containsExactly(9_999);
+        /* the timer is disarmed right after dispatching */
+        Maybe.attempt(() -> Thread.sleep(50));
+        assertThat(debounced.isTimerArmed()).isFalse();
+    }
+}
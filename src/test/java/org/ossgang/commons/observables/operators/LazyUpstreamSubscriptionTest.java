@@ -0,0 +1,195 @@
+package org.ossgang.commons.observables.operators;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.ossgang.commons.observables.Observables.lazyMap;
+import static org.ossgang.commons.observables.SubscriptionOptions.FIRST_UPDATE;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.ossgang.commons.observables.DispatchExecutors;
+import org.ossgang.commons.observables.Dispatcher;
+import org.ossgang.commons.observables.DispatchingObservable;
+import org.ossgang.commons.observables.ObservableValue;
+import org.ossgang.commons.observables.Observables;
+import org.ossgang.commons.observables.Subscription;
+import org.ossgang.commons.properties.Properties;
+import org.ossgang.commons.properties.Property;
+
+public class LazyUpstreamSubscriptionTest {
+
+    @After
+    public void resetUpstreamLinger() {
+        Observables.setUpstreamLinger(Duration.ZERO);
+    }
+
+    @Test
+    public void unobservedMap_shouldNotSubscribeUpstream() {
+        Property<String> property = Properties.property("1");
+        AtomicInteger evaluations = new AtomicInteger();
+        ObservableValue<Integer> mapped = lazyMap(property, v -> {
+            evaluations.incrementAndGet();
+            return Integer.valueOf(v);
+        });
+
+        property.set("2");
+        property.set("3");
+
+        assertThat(subscribers(property)).isEqualTo(0);
+        assertThat(evaluations.get()).isEqualTo(0);
+        assertThat(mapped.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void subscribingAndUnsubscribing_shouldConnectAndDisconnectUpstream() throws Exception {
+        Property<String> property = Properties.property("1");
+        ObservableValue<Integer> mapped = lazyMap(property, Integer::valueOf);
+        List<Integer> values = new CopyOnWriteArrayList<>();
+
+        Subscription first = mapped.subscribe(values::add);
+        Subscription second = mapped.subscribe(v -> {
+        });
+        assertThat(subscribers(property)).isEqualTo(1);
+
+        property.set("2");
+        awaitSize(values, 1);
+        first.unsubscribe();
+        assertThat(subscribers(property)).isEqualTo(1);
+        second.unsubscribe();
+        assertThat(subscribers(property)).isEqualTo(0);
+
+        property.set("3");
+        mapped.subscribe(values::add);
+        property.set("4");
+        awaitSize(values, 2);
+        assertThat(values).containsExactly(2, 4);
+    }
+
+    @Test
+    public void firstUpdate_shouldBeDeliveredExactlyOnce() throws Exception {
+        Property<String> property = Properties.property("1");
+        ObservableValue<Integer> mapped = lazyMap(property, Integer::valueOf);
+        List<Integer> values = new CopyOnWriteArrayList<>();
+
+        mapped.subscribe(values::add, FIRST_UPDATE);
+        property.set("2");
+        awaitSize(values, 2);
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        assertThat(values).containsExactly(1, 2);
+    }
+
+    @Test
+    public void updatesFollowingTheFirstUpdate_shouldBeDispatchedWhileConnecting() {
+        Property<String> property = Properties.property("1", DispatchExecutors.synchronous());
+        AtomicBoolean updated = new AtomicBoolean(false);
+        /* queues an update behind the first one, delivered by the same drain loop before the subscription returned */
+        ObservableValue<Integer> mapped = lazyMap(property, v -> {
+            if (updated.compareAndSet(false, true)) {
+                property.set("2");
+            }
+            return Integer.valueOf(v);
+        });
+        List<Integer> values = new CopyOnWriteArrayList<>();
+
+        mapped.subscribe(values::add);
+
+        assertThat(values).containsExactly(2);
+    }
+
+    @Test
+    public void getWhileUnobserved_shouldComputeOncePerSourceValue() {
+        Property<String> property = Properties.property("1");
+        AtomicInteger evaluations = new AtomicInteger();
+        ObservableValue<Integer> mapped = lazyMap(property, v -> {
+            evaluations.incrementAndGet();
+            return Integer.valueOf(v);
+        });
+
+        assertThat(mapped.get()).isEqualTo(1);
+        assertThat(mapped.get()).isEqualTo(1);
+        assertThat(evaluations.get()).isEqualTo(1);
+        property.set("2");
+        assertThat(mapped.get()).isEqualTo(2);
+        assertThat(evaluations.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void getWhileUnobserved_shouldReportExceptionsAndKeepLastValue() throws Exception {
+        CompletableFuture<Exception> exception = new CompletableFuture<>();
+        Observables.setUncaughtExceptionHandler(exception::complete);
+        Property<String> property = Properties.property("1");
+        ObservableValue<Integer> mapped = lazyMap(property, Integer::valueOf);
+
+        assertThat(mapped.get()).isEqualTo(1);
+        property.set("THIS-IS-NOT-A-NUMBER");
+
+        assertThat(mapped.get()).isEqualTo(1);
+        assertThat(exception.get(1, SECONDS)).hasCauseInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    public void mapFilterAndDerive_shouldStayEager() {
+        Property<Integer> property = Properties.property(2);
+        ObservableValue<Integer> even = property.filter(v -> v % 2 == 0);
+        property.derive(Optional::of);
+        property.map(v -> v + 1);
+
+        property.set(3);
+
+        assertThat(subscribers(property)).isEqualTo(3);
+        assertThat(even.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void observableValueOf_shouldCacheTheLatestValueWhileUnobserved() throws Exception {
+        Dispatcher<String> dispatcher = Observables.dispatcher();
+        ObservableValue<String> value = Observables.observableValueOf(dispatcher);
+
+        dispatcher.dispatchValue("a");
+
+        long deadline = System.currentTimeMillis() + 1000;
+        while (value.get() == null && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        assertThat(value.get()).isEqualTo("a");
+    }
+
+    @Test
+    public void linger_shouldKeepUpstreamSubscribedForAWhile() throws Exception {
+        Observables.setUpstreamLinger(Duration.ofMillis(200));
+        Property<String> property = Properties.property("1");
+        ObservableValue<Integer> mapped = lazyMap(property, Integer::valueOf);
+
+        mapped.subscribe(v -> {
+        }).unsubscribe();
+        assertThat(subscribers(property)).isEqualTo(1);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (subscribers(property) > 0 && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertThat(subscribers(property)).isEqualTo(0);
+    }
+
+    private static int subscribers(ObservableValue<?> observable) {
+        return ((DispatchingObservable<?>) observable).subscriberCount();
+    }
+
+    private static void awaitSize(List<?> list, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + SECONDS.toNanos(5);
+        while (list.size() < size && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        assertThat(list).hasSize(size);
+    }
+}
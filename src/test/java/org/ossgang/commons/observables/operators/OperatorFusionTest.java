@@ -0,0 +1,120 @@
+package org.ossgang.commons.observables.operators;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.ossgang.commons.observables.Observables.lazyMap;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.ossgang.commons.observables.DispatchExecutors;
+import org.ossgang.commons.observables.DispatchingObservable;
+import org.ossgang.commons.observables.ObservableValue;
+import org.ossgang.commons.observables.Observer;
+import org.ossgang.commons.properties.Properties;
+import org.ossgang.commons.properties.Property;
+
+public class OperatorFusionTest {
+
+    @Test
+    public void mapChain_shouldSubscribeOnlyToTheSource() throws Exception {
+        Property<String> property = Properties.property("1");
+        ObservableValue<Integer> parsed = lazyMap(property, Integer::valueOf);
+        ObservableValue<Integer> doubled = lazyMap(parsed, v -> v * 2);
+        ObservableValue<String> result = lazyMap(doubled, v -> "#" + v);
+        List<String> values = new CopyOnWriteArrayList<>();
+
+        result.subscribe(values::add);
+        for (int i = 2; i <= 4; i++) {
+            property.set(String.valueOf(i));
+        }
+
+        awaitSize(values, 3);
+        assertThat(values).containsExactly("#4", "#6", "#8");
+        assertThat(subscribers(property)).isEqualTo(1);
+        assertThat(subscribers(parsed)).isEqualTo(0);
+        assertThat(subscribers(doubled)).isEqualTo(0);
+        assertThat(result.get()).isEqualTo("#8");
+    }
+
+    @Test
+    public void intermediateStage_shouldStillBeUsableOnItsOwn() throws Exception {
+        Property<String> property = Properties.property("1");
+        ObservableValue<Integer> parsed = lazyMap(property, Integer::valueOf);
+        ObservableValue<Integer> doubled = lazyMap(parsed, v -> v * 2);
+        List<Integer> parsedValues = new CopyOnWriteArrayList<>();
+        List<Integer> doubledValues = new CopyOnWriteArrayList<>();
+
+        parsed.subscribe(parsedValues::add);
+        doubled.subscribe(doubledValues::add);
+        property.set("21");
+
+        awaitSize(parsedValues, 1);
+        awaitSize(doubledValues, 1);
+        assertThat(parsedValues).containsExactly(21);
+        assertThat(doubledValues).containsExactly(42);
+    }
+
+    @Test
+    public void sharedIntermediateStage_shouldEvaluateItsMapperOncePerUpdate() {
+        /* synchronous, so that the stages do not evaluate the same update concurrently */
+        Property<String> property = Properties.property("1", DispatchExecutors.synchronous());
+        AtomicInteger evaluations = new AtomicInteger();
+        ObservableValue<Integer> parsed = lazyMap(property, v -> {
+            evaluations.incrementAndGet();
+            return Integer.valueOf(v);
+        });
+        List<Integer> parsedValues = new CopyOnWriteArrayList<>();
+        List<Integer> incrementedValues = new CopyOnWriteArrayList<>();
+        List<Integer> doubledValues = new CopyOnWriteArrayList<>();
+
+        parsed.subscribe(parsedValues::add);
+        lazyMap(parsed, v -> v + 1).subscribe(incrementedValues::add);
+        lazyMap(parsed, v -> v * 2).subscribe(doubledValues::add);
+        property.set("2");
+        property.set("3");
+
+        assertThat(parsedValues).containsExactly(2, 3);
+        assertThat(incrementedValues).containsExactly(3, 4);
+        assertThat(doubledValues).containsExactly(4, 6);
+        assertThat(evaluations.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void exceptionInEarlierStage_shouldPropagateDownstream() throws Exception {
+        Property<String> property = Properties.property("1");
+        ObservableValue<Integer> result = lazyMap(lazyMap(property, Integer::valueOf), v -> v + 1);
+        CompletableFuture<Throwable> exception = new CompletableFuture<>();
+
+        result.subscribe(new Observer<Integer>() {
+            @Override
+            public void onValue(Integer value) {
+                /* no op */
+            }
+
+            @Override
+            public void onException(Throwable e) {
+                exception.complete(e);
+            }
+        });
+        property.set("THIS-IS-NOT-A-NUMBER");
+
+        assertThat(exception.get(1, SECONDS)).isInstanceOf(NumberFormatException.class);
+    }
+
+    private static int subscribers(ObservableValue<?> observable) {
+        return ((DispatchingObservable<?>) observable).subscriberCount();
+    }
+
+    private static void awaitSize(List<?> list, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + SECONDS.toNanos(5);
+        while (list.size() < size && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        assertThat(list).hasSize(size);
+    }
+}
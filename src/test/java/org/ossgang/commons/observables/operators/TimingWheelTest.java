@@ -0,0 +1,131 @@
+package org.ossgang.commons.observables.operators;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.ossgang.commons.utils.NamedDaemonThreadFactory.daemonThreadFactoryWithPrefix;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.ossgang.commons.observables.Observables;
+import org.ossgang.commons.observables.operators.TimingWheel.Timeout;
+
+public class TimingWheelTest {
+
+    private final TimingWheel wheel = new TimingWheel(Duration.ofMillis(1), 8,
+            daemonThreadFactoryWithPrefix("TimingWheelTest-"));
+
+    @After
+    public void shutdownWheel() {
+        wheel.shutdown();
+        Observables.setUncaughtExceptionHandler(Throwable::printStackTrace);
+    }
+
+    @Test
+    public void timeout_shouldNotRunBeforeItsDelay() throws Exception {
+        CompletableFuture<Long> ranAt = new CompletableFuture<>();
+        long start = System.nanoTime();
+
+        /* 50ms is several revolutions of the 8-bucket wheel */
+        wheel.schedule(() -> ranAt.complete(System.nanoTime()), 50, MILLISECONDS);
+
+        long elapsedMillis = NANOSECONDS.toMillis(ranAt.get(1, SECONDS) - start);
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(50L);
+        assertThat(wheel.pendingTimeouts()).isEqualTo(0L);
+    }
+
+    @Test
+    public void cancelledTimeout_shouldNotRun() throws Exception {
+        AtomicInteger runs = new AtomicInteger(0);
+        CompletableFuture<Void> later = new CompletableFuture<>();
+
+        Timeout timeout = wheel.schedule(runs::incrementAndGet, 20, MILLISECONDS);
+        wheel.schedule(() -> later.complete(null), 40, MILLISECONDS);
+
+        assertThat(timeout.cancel()).isTrue();
+        later.get(1, SECONDS);
+        assertThat(runs.get()).isEqualTo(0);
+        assertThat(timeout.isCancelled()).isTrue();
+        assertThat(timeout.cancel()).isFalse();
+        assertThat(wheel.pendingTimeouts()).isEqualTo(0L);
+    }
+
+    @Test
+    public void manyTimeouts_shouldAllRun() throws Exception {
+        int count = 10_000;
+        CountDownLatch latch = new CountDownLatch(count);
+
+        for (int i = 0; i < count; i++) {
+            wheel.schedule(latch::countDown, i % 30, MILLISECONDS);
+        }
+
+        assertThat(latch.await(5, SECONDS)).isTrue();
+    }
+
+    @Test
+    public void throwingTask_shouldNotStopTheWheel() throws Exception {
+        CompletableFuture<Void> after = new CompletableFuture<>();
+
+        wheel.schedule(() -> {
+            throw new IllegalStateException("TEST-EXCEPTION");
+        }, 1, MILLISECONDS);
+        wheel.schedule(() -> after.complete(null), 10, MILLISECONDS);
+
+        after.get(1, SECONDS);
+    }
+
+    @Test
+    public void taskThrowingAnError_shouldNotStopTheWheel() throws Exception {
+        CompletableFuture<Void> after = new CompletableFuture<>();
+
+        wheel.schedule(() -> {
+            throw new AssertionError("TEST-ERROR");
+        }, 1, MILLISECONDS);
+        wheel.schedule(() -> after.complete(null), 10, MILLISECONDS);
+
+        after.get(1, SECONDS);
+    }
+
+    @Test
+    public void failingTasks_shouldBeReportedToTheUncaughtExceptionHandler() throws Exception {
+        List<Exception> reported = new CopyOnWriteArrayList<>();
+        CountDownLatch bothReported = new CountDownLatch(2);
+        Observables.setUncaughtExceptionHandler(exception -> {
+            reported.add(exception);
+            bothReported.countDown();
+        });
+        IllegalStateException exception = new IllegalStateException("TEST-EXCEPTION");
+        AssertionError error = new AssertionError("TEST-ERROR");
+
+        wheel.schedule(() -> {
+            throw exception;
+        }, 1, MILLISECONDS);
+        wheel.schedule(() -> {
+            throw error;
+        }, 5, MILLISECONDS);
+
+        assertThat(bothReported.await(1, SECONDS)).isTrue();
+        assertThat(reported.get(0)).isSameAs(exception);
+        assertThat(reported.get(1)).isInstanceOf(IllegalStateException.class).hasCause(error);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void scheduleAfterShutdown_isRejected() {
+        wheel.shutdown();
+        wheel.schedule(() -> {
+        }, 1, MILLISECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wheelSizeNotPowerOfTwo_isRejected() {
+        new TimingWheel(Duration.ofMillis(1), 10, daemonThreadFactoryWithPrefix("TimingWheelTest-"));
+    }
+}
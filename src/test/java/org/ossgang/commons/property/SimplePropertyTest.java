@@ -3,8 +3,11 @@ package org.ossgang.commons.property;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.ossgang.commons.observables.Observers.withErrorHandling;
+import static org.ossgang.commons.observables.SubscriptionOptions.ON_CHANGE;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.junit.Test;
 import org.ossgang.commons.observables.ObservableValue;
@@ -29,6 +32,33 @@ public class SimplePropertyTest {
         assertThat(updateValue.get(1, SECONDS)).isEqualTo(ANY_STRING);
     }
 
+    @Test
+    public void setSameValue_onlyChangeSubscribersAreSkipped() throws Exception {
+        List<String> allUpdates = new CopyOnWriteArrayList<>();
+        List<String> changes = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> lastUpdate = new CompletableFuture<>();
+        CompletableFuture<String> lastChange = new CompletableFuture<>();
+
+        Property<String> property = Properties.property(ANY_STRING);
+        property.subscribe(v -> {
+            allUpdates.add(v);
+            if (ANY_OTHER_STRING.equals(v)) {
+                lastUpdate.complete(v);
+            }
+        });
+        property.subscribe(v -> {
+            changes.add(v);
+            lastChange.complete(v);
+        }, ON_CHANGE);
+        property.set(ANY_STRING);
+        property.set(ANY_OTHER_STRING);
+
+        assertThat(lastUpdate.get(1, SECONDS)).isEqualTo(ANY_OTHER_STRING);
+        assertThat(lastChange.get(1, SECONDS)).isEqualTo(ANY_OTHER_STRING);
+        assertThat(allUpdates).containsExactly(ANY_STRING, ANY_OTHER_STRING);
+        assertThat(changes).containsExactly(ANY_OTHER_STRING);
+    }
+
     @Test
     public void transformationTest() throws Exception {
         CompletableFuture<Integer> mappedValueUpdate = new CompletableFuture<>();
@@ -0,0 +1,34 @@
+package org.ossgang.commons.utils;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutorService;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ThreadPoolsTest {
+
+    @After
+    public void clearProperty() {
+        System.clearProperty(ThreadPools.VIRTUAL_THREADS_PROPERTY);
+    }
+
+    @Test
+    public void cachedDaemonPool_runsTasksOnNamedDaemonThreads() throws Exception {
+        ExecutorService pool = ThreadPools.cachedDaemonPool("ThreadPoolsTest-");
+
+        Thread thread = pool.submit(Thread::currentThread).get(1, SECONDS);
+
+        assertThat(thread.getName()).startsWith("ThreadPoolsTest-");
+        assertThat(thread.isDaemon()).isTrue();
+    }
+
+    @Test
+    public void virtualThreads_canBeDisabledBySystemProperty() {
+        System.setProperty(ThreadPools.VIRTUAL_THREADS_PROPERTY, "false");
+
+        assertThat(ThreadPools.useVirtualThreads()).isFalse();
+    }
+}